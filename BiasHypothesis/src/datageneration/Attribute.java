@@ -0,0 +1,113 @@
+package datageneration;
+
+import enums.Gender;
+import enums.Race;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A label column of a result file that rows can be grouped by, such as race, gender, age band or region.
+ * An attribute with a vocabulary only accepts those values; rows with any other value are reported as unknown
+ * instead of being grouped. An attribute without one accepts every value it meets.
+ */
+public class Attribute {
+
+    public static final Attribute GENDER =
+        new Attribute("gender", SentimentCSVParser.GENDER_COLUMN, toStrings(Gender.values()));
+    public static final Attribute RACE =
+        new Attribute("race", SentimentCSVParser.RACE_COLUMN, toStrings(Race.values()));
+
+    private final String name;
+    private final int column;
+    private final List<String> vocabulary;
+
+    /**
+     * Creates an attribute that accepts every value.
+     * @param name attribute name, e.g. "region".
+     * @param column index of the column holding the attribute.
+     */
+    public Attribute(String name, int column) {
+        this(name, column, null);
+    }
+
+    /**
+     * Creates an attribute that only accepts the given values.
+     * @param name attribute name, e.g. "age_band".
+     * @param column index of the column holding the attribute.
+     * @param vocabulary every value the attribute may take; null to accept every value.
+     */
+    public Attribute(String name, int column, List<String> vocabulary) {
+        if (column < 0) {
+            throw new IllegalArgumentException("Column must not be negative: " + column);
+        }
+        this.name = name;
+        this.column = column;
+        this.vocabulary = vocabulary == null ? null : Collections.unmodifiableList(new ArrayList<>(vocabulary));
+    }
+
+    /**
+     * @param name attribute name.
+     * @param column index of the column holding the attribute.
+     * @param type enum whose toString() values make up the vocabulary.
+     * @return an attribute that accepts the values of the enum.
+     */
+    public static <E extends Enum<E>> Attribute of(String name, int column, Class<E> type) {
+        return new Attribute(name, column, toStrings(type.getEnumConstants()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the accepted values, or null if every value is accepted.
+     */
+    public List<String> getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * @return an empty dictionary for this attribute, closed if the attribute has a vocabulary.
+     */
+    public AttributeDictionary newDictionary() {
+        return vocabulary == null ? new AttributeDictionary() : new AttributeDictionary(vocabulary);
+    }
+
+    private static List<String> toStrings(Object[] values) {
+        List<String> strings = new ArrayList<>(values.length);
+        for (Object value : values) {
+            strings.add(value.toString());
+        }
+        return strings;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Attribute)) {
+            return false;
+        }
+        Attribute other = (Attribute) o;
+        return name.equals(other.name) && column == other.column
+            && (vocabulary == null ? other.vocabulary == null : vocabulary.equals(other.vocabulary));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[] {name, column, vocabulary});
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
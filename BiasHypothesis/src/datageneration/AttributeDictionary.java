@@ -0,0 +1,87 @@
+package datageneration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense integer codes 0, 1, 2, ... to the distinct values of one attribute, in order of first
+ * appearance, so rows can be grouped by array index instead of by comparing strings.
+ *
+ * An open dictionary interns every value it is given. A closed dictionary only knows the values it was created
+ * with and answers -1 for anything else, so unexpected values can be reported instead of being grouped.
+ * Not thread safe.
+ */
+public class AttributeDictionary {
+
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final boolean closed;
+
+    /**
+     * Creates an open dictionary.
+     */
+    public AttributeDictionary() {
+        this.closed = false;
+    }
+
+    /**
+     * Creates a closed dictionary. Codes follow the order of the given values.
+     * @param vocabulary every value the attribute may take.
+     */
+    public AttributeDictionary(Collection<String> vocabulary) {
+        for (String value : vocabulary) {
+            intern(value);
+        }
+        this.closed = true;
+    }
+
+    /**
+     * @param value attribute value.
+     * @return the value's code, interning it first if the dictionary is open; UNKNOWN if the dictionary is closed
+     * and does not hold the value.
+     */
+    public int code(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return closed ? UNKNOWN : intern(value);
+    }
+
+    /**
+     * @param value attribute value.
+     * @return the value's code, or UNKNOWN if it has not been interned.
+     */
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? UNKNOWN : code;
+    }
+
+    /**
+     * @param code a code handed out by this dictionary.
+     * @return the value with that code.
+     */
+    public String value(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private int intern(String value) {
+        int code = values.size();
+        codes.put(value, code);
+        values.add(value);
+        return code;
+    }
+}
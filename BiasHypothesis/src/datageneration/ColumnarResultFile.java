@@ -0,0 +1,396 @@
+package datageneration;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import enums.Gender;
+import enums.Race;
+import enums.Sentiment;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact columnar copy of a result file. Converting once with write() lets every later analysis load the
+ * scores with a few memory mappings instead of parsing csv text.
+ *
+ * Rows are sorted into cells by gender and then race (stable, so each cell keeps file order), which makes the
+ * scores of every cell one contiguous run of every score column. The file is little endian:
+ *
+ *   header:  magic "SCOL", format version, row count (long), number of genders, number of races,
+ *            then the row count of every cell (long), gender major, in enum ordinal order
+ *   labels:  gender ordinal, race ordinal and sentiment ordinal columns, one byte per row each
+ *   scores:  positive, mixed, negative and neutral columns, one double per row each, 8 byte aligned
+ *
+ * Names and texts are not kept. Label ordinals are only valid for the enums the file was written with, so a
+ * file whose enum sizes no longer match is rejected.
+ */
+public class ColumnarResultFile {
+
+    private static final int MAGIC = 0x53434F4C; // "SCOL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FIXED_HEADER_BYTES = 24;
+    private static final int SCORE_COLUMNS = 4;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    // a DoubleBuffer over one score column is int indexed
+    private static final long MAX_ROWS = Integer.MAX_VALUE / Double.BYTES;
+
+    private static final Gender[] GENDERS = Gender.values();
+    private static final Race[] RACES = Race.values();
+    private static final Sentiment[] SENTIMENTS = Sentiment.values();
+
+    private final long rows;
+    private final long[] cellStarts;
+    private final long[] cellSizes;
+    private final ByteBuffer genders;
+    private final ByteBuffer races;
+    private final ByteBuffer sentiments;
+    private final DoubleBuffer[] scores = new DoubleBuffer[SCORE_COLUMNS];
+
+    private ColumnarResultFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int cells = GENDERS.length * RACES.length;
+            if (channel.size() < FIXED_HEADER_BYTES + (long) cells * Long.BYTES) {
+                throw new IOException(file + " is not a columnar result file");
+            }
+            ByteBuffer header = map(channel, 0, FIXED_HEADER_BYTES + (long) cells * Long.BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException(file + " is not a columnar result file");
+            }
+            if (header.getInt(16) != GENDERS.length || header.getInt(20) != RACES.length) {
+                throw new IOException(file + " was written with different Gender or Race values");
+            }
+            this.rows = header.getLong(8);
+            this.cellStarts = new long[cells];
+            this.cellSizes = new long[cells];
+            long start = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                cellStarts[cell] = start;
+                cellSizes[cell] = header.getLong(FIXED_HEADER_BYTES + cell * Long.BYTES);
+                start += cellSizes[cell];
+            }
+            if (start != rows) {
+                throw new IOException(file + " has a corrupt cell table");
+            }
+
+            Layout layout = new Layout(rows);
+            if (channel.size() != layout.end) {
+                throw new IOException(file + " is truncated");
+            }
+            this.genders = map(channel, layout.genders, rows);
+            this.races = map(channel, layout.races, rows);
+            this.sentiments = map(channel, layout.sentiments, rows);
+            for (int column = 0; column < SCORE_COLUMNS; column++) {
+                scores[column] = map(channel, layout.scores(column), rows * Double.BYTES).asDoubleBuffer();
+            }
+        }
+    }
+
+    /**
+     * Maps a columnar result file. The columns stay readable after this method returns; nothing is read until
+     * a column is used.
+     *
+     * @param file file written by write().
+     * @return the mapped file.
+     * @throws IOException if the file cannot be read or is not a compatible columnar result file.
+     */
+    public static ColumnarResultFile open(Path file) throws IOException {
+        return new ColumnarResultFile(file);
+    }
+
+    /**
+     * Converts csv results, with the headers described in SentimentCSVParser, to the columnar format.
+     *
+     * @param source csv results. Not closed by this method.
+     * @param file destination, replaced if it exists.
+     * @throws IOException if the file cannot be written or a row has an unknown gender, race or sentiment.
+     * @throws CsvValidationException exception.
+     */
+    public static void write(Reader source, Path file) throws IOException, CsvValidationException {
+        int cells = GENDERS.length * RACES.length;
+        CellBuilder[] builders = new CellBuilder[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            builders[cell] = new CellBuilder();
+        }
+
+        CSVReader reader = new CSVReader(source);
+        String[] row;
+        long rows = 0;
+        while ((row = reader.readNext()) != null) {
+            Gender gender = label(Gender.class, row[SentimentCSVParser.GENDER_COLUMN], reader);
+            Race race = label(Race.class, row[SentimentCSVParser.RACE_COLUMN], reader);
+            Sentiment sentiment = label(Sentiment.class, row[SentimentCSVParser.SENTIMENT_COLUMN], reader);
+            builders[cell(gender, race)].add(sentiment, row);
+            if (++rows > MAX_ROWS) {
+                throw new IOException("More than " + MAX_ROWS + " rows");
+            }
+        }
+
+        Layout layout = new Layout(rows);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(rows).putInt(GENDERS.length).putInt(RACES.length);
+            for (CellBuilder builder : builders) {
+                out.putLong(builder.size());
+            }
+
+            for (int cell = 0; cell < cells; cell++) {
+                fill(channel, out, (byte) GENDERS[cell / RACES.length].ordinal(), builders[cell].size());
+            }
+            for (int cell = 0; cell < cells; cell++) {
+                fill(channel, out, (byte) RACES[cell % RACES.length].ordinal(), builders[cell].size());
+            }
+            for (CellBuilder builder : builders) {
+                for (int i = 0; i < builder.size(); i++) {
+                    ensureRoom(channel, out, 1);
+                    out.put(builder.sentiments[i]);
+                }
+            }
+            fill(channel, out, (byte) 0, layout.scores(0) - layout.sentiments - rows);
+            for (int column = 0; column < SCORE_COLUMNS; column++) {
+                for (CellBuilder builder : builders) {
+                    double[] values = builder.scores[column].toArray();
+                    int written = 0;
+                    while (written < values.length) {
+                        ensureRoom(channel, out, Double.BYTES);
+                        int count = Math.min(out.remaining() / Double.BYTES, values.length - written);
+                        out.asDoubleBuffer().put(values, written, count);
+                        out.position(out.position() + count * Double.BYTES);
+                        written += count;
+                    }
+                }
+            }
+            drain(channel, out);
+        }
+    }
+
+    /**
+     * Converts a csv result file to the columnar format.
+     *
+     * @param csvFile result file with the headers described in SentimentCSVParser.
+     * @param file destination, replaced if it exists.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public static void write(Path csvFile, Path file) throws IOException, CsvValidationException {
+        try (Reader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            write(reader, file);
+        }
+    }
+
+    public long getRowCount() {
+        return rows;
+    }
+
+    /**
+     * @param gender gender of the cell.
+     * @param race race of the cell.
+     * @return number of rows with that gender and race.
+     */
+    public long getCellSize(Gender gender, Race race) {
+        return cellSizes[cell(gender, race)];
+    }
+
+    /**
+     * @param column one of the score columns of SentimentCSVParser, POSITIVE_COLUMN to NEUTRAL_COLUMN.
+     * @param gender gender of the cell.
+     * @param race race of the cell.
+     * @return a read-only view of the cell's scores, straight over the mapped file.
+     */
+    public DoubleBuffer getScores(int column, Gender gender, Race race) {
+        int cell = cell(gender, race);
+        DoubleBuffer view = scoreColumn(column).duplicate();
+        view.position((int) cellStarts[cell]).limit((int) (cellStarts[cell] + cellSizes[cell]));
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @param column one of the score columns of SentimentCSVParser, POSITIVE_COLUMN to NEUTRAL_COLUMN.
+     * @param gender gender of the cell.
+     * @param race race of the cell.
+     * @return a copy of the cell's scores.
+     */
+    public double[] getScoreArray(int column, Gender gender, Race race) {
+        DoubleBuffer view = getScores(column, gender, race);
+        double[] values = new double[view.remaining()];
+        view.get(values);
+        return values;
+    }
+
+    /**
+     * @param row row index, in cell order.
+     * @return the row's sentiment.
+     */
+    public Sentiment getSentiment(long row) {
+        return SENTIMENTS[sentiments.get(checkRow(row))];
+    }
+
+    /**
+     * @param row row index, in cell order.
+     * @return the row's gender.
+     */
+    public Gender getGender(long row) {
+        return GENDERS[genders.get(checkRow(row))];
+    }
+
+    /**
+     * @param row row index, in cell order.
+     * @return the row's race.
+     */
+    public Race getRace(long row) {
+        return RACES[races.get(checkRow(row))];
+    }
+
+    /**
+     * Splits the positive scores by every given grouping, the same groups SentimentCSVParser builds from the csv
+     * file. Whole cells are copied in bulk, so within a group rows are ordered by cell rather than by file
+     * order. Only groupings over the gender and race columns can be built.
+     *
+     * @param groupings the groupings to build.
+     * @return the scores of every group of every grouping.
+     */
+    public ScoreGroups toScoreGroups(Grouping... groupings) {
+        ScoreGroups groups = new ScoreGroups(Arrays.asList(groupings));
+        String[] row = new String[SentimentCSVParser.RACE_COLUMN + 1];
+        for (Grouping grouping : groupings) {
+            for (int column : grouping.getColumns()) {
+                if (column != SentimentCSVParser.GENDER_COLUMN && column != SentimentCSVParser.RACE_COLUMN) {
+                    throw new IllegalArgumentException("Columnar files only group by gender and race: " + grouping);
+                }
+            }
+            for (Gender gender : GENDERS) {
+                for (Race race : RACES) {
+                    if (cellSizes[cell(gender, race)] == 0) {
+                        continue;
+                    }
+                    row[SentimentCSVParser.GENDER_COLUMN] = gender.toString();
+                    row[SentimentCSVParser.RACE_COLUMN] = race.toString();
+                    groups.addAll(grouping, grouping.key(row),
+                        getScores(SentimentCSVParser.POSITIVE_COLUMN, gender, race));
+                }
+            }
+        }
+        return groups;
+    }
+
+    private DoubleBuffer scoreColumn(int column) {
+        if (column < SentimentCSVParser.POSITIVE_COLUMN || column > SentimentCSVParser.NEUTRAL_COLUMN) {
+            throw new IllegalArgumentException("Not a score column: " + column);
+        }
+        return scores[column - SentimentCSVParser.POSITIVE_COLUMN];
+    }
+
+    private int checkRow(long row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+        }
+        return (int) row;
+    }
+
+    private static int cell(Gender gender, Race race) {
+        return gender.ordinal() * RACES.length + race.ordinal();
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Label columns hold toString() values, which match the enum constant names.
+     */
+    private static <E extends Enum<E>> E label(Class<E> type, String value, CSVReader reader) throws IOException {
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown " + type.getSimpleName() + " '" + value + "' on line "
+                + reader.getLinesRead());
+        }
+    }
+
+    private static void fill(FileChannel channel, ByteBuffer out, byte value, long count) throws IOException {
+        for (long i = 0; i < count; i++) {
+            ensureRoom(channel, out, 1);
+            out.put(value);
+        }
+    }
+
+    private static void ensureRoom(FileChannel channel, ByteBuffer out, int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            drain(channel, out);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * File offsets of every column for a given number of rows.
+     */
+    private static final class Layout {
+
+        private final long genders;
+        private final long races;
+        private final long sentiments;
+        private final long firstScore;
+        private final long rows;
+        private final long end;
+
+        Layout(long rows) {
+            this.rows = rows;
+            this.genders = FIXED_HEADER_BYTES + (long) GENDERS.length * RACES.length * Long.BYTES;
+            this.races = genders + rows;
+            this.sentiments = races + rows;
+            this.firstScore = (sentiments + rows + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+            this.end = firstScore + SCORE_COLUMNS * rows * Double.BYTES;
+        }
+
+        long scores(int column) {
+            return firstScore + column * rows * Double.BYTES;
+        }
+    }
+
+    /**
+     * Rows of one cell, collected before the cells are written one after another.
+     */
+    private static final class CellBuilder {
+
+        private byte[] sentiments = new byte[64];
+        private final DoubleArrayBuilder[] scores = new DoubleArrayBuilder[SCORE_COLUMNS];
+        private int size;
+
+        CellBuilder() {
+            for (int column = 0; column < SCORE_COLUMNS; column++) {
+                scores[column] = new DoubleArrayBuilder();
+            }
+        }
+
+        void add(Sentiment sentiment, String[] row) {
+            if (size == sentiments.length) {
+                sentiments = Arrays.copyOf(sentiments, size << 1);
+            }
+            sentiments[size++] = (byte) sentiment.ordinal();
+            for (int column = 0; column < SCORE_COLUMNS; column++) {
+                scores[column].add(Double.parseDouble(row[SentimentCSVParser.POSITIVE_COLUMN + column]));
+            }
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package datageneration;
+
+import enums.PronounSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Lazily generates the cross product of base passages x names x pronoun sets. Records are rendered one at a time
+ * as the stream is consumed, so a corpus of any size can be written with flat memory.
+ *
+ * Records are ordered by passage, then name list, then name, then pronoun set, and record i can be rendered
+ * directly from its index. The stream is therefore sized and splits evenly if it is ever run in parallel.
+ */
+public class CorpusGenerator {
+
+    private final List<PassageTemplate> passages;
+    private final List<NameList> nameLists;
+    private final List<PronounSet> pronounSets;
+    // first record index of each name list within a passage, plus the passage size at the end
+    private final long[] nameListOffsets;
+
+    /**
+     * Generates every passage for every name with the pronouns of the name's gender.
+     * @param passages compiled base passages.
+     * @param nameLists name lists, in output order.
+     */
+    public CorpusGenerator(List<PassageTemplate> passages, List<NameList> nameLists) {
+        this(passages, nameLists, Collections.<PronounSet>emptyList());
+    }
+
+    /**
+     * Generates every passage for every name with each of the given pronoun sets.
+     * @param passages compiled base passages.
+     * @param nameLists name lists, in output order.
+     * @param pronounSets pronoun sets to cross with every name; empty to use the pronouns of the name's gender.
+     */
+    public CorpusGenerator(List<PassageTemplate> passages, List<NameList> nameLists, List<PronounSet> pronounSets) {
+        this.passages = new ArrayList<>(passages);
+        this.nameLists = new ArrayList<>(nameLists);
+        this.pronounSets = new ArrayList<>(pronounSets);
+        this.nameListOffsets = new long[nameLists.size() + 1];
+        int variants = Math.max(1, pronounSets.size());
+        for (int i = 0; i < nameLists.size(); i++) {
+            nameListOffsets[i + 1] = nameListOffsets[i] + (long) nameLists.get(i).size() * variants;
+        }
+    }
+
+    /**
+     * @return number of records in the corpus.
+     */
+    public long size() {
+        return passages.size() * nameListOffsets[nameLists.size()];
+    }
+
+    /**
+     * @return every record, rendered lazily in corpus order.
+     */
+    public Stream<CorpusRecord> stream() {
+        return LongStream.range(0, size()).mapToObj(this::record);
+    }
+
+    /**
+     * @return every record, rendered lazily in corpus order.
+     */
+    public Iterator<CorpusRecord> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * Renders a single record.
+     * @param rowId index of the record, 0 <= rowId < size().
+     * @return the record.
+     */
+    public CorpusRecord record(long rowId) {
+        long perPassage = nameListOffsets[nameLists.size()];
+        int passageId = (int) (rowId / perPassage);
+        long withinPassage = rowId % perPassage;
+
+        int list = 0;
+        while (nameListOffsets[list + 1] <= withinPassage) {
+            list++;
+        }
+        NameList nameList = nameLists.get(list);
+        long withinList = withinPassage - nameListOffsets[list];
+        int variants = Math.max(1, pronounSets.size());
+        String name = nameList.getNames().get((int) (withinList / variants));
+        PronounSet pronouns = pronounSets.isEmpty()
+            ? PronounSet.forGender(nameList.getGender())
+            : pronounSets.get((int) (withinList % variants));
+
+        String text = passages.get(passageId).render(name, pronouns);
+        return new CorpusRecord(rowId, passageId, text, name, nameList.getGender(), nameList.getRace(), pronouns);
+    }
+}
@@ -0,0 +1,64 @@
+package datageneration;
+
+import enums.Gender;
+import enums.PronounSet;
+import enums.Race;
+
+/**
+ * One generated passage and the identifiers written next to it in the report.
+ */
+public class CorpusRecord {
+
+    private final long rowId;
+    private final int passageId;
+    private final String text;
+    private final String name;
+    private final Gender gender;
+    private final Race race;
+    private final PronounSet pronouns;
+
+    public CorpusRecord(long rowId, int passageId, String text, String name, Gender gender, Race race,
+                        PronounSet pronouns) {
+        this.rowId = rowId;
+        this.passageId = passageId;
+        this.text = text;
+        this.name = name;
+        this.gender = gender;
+        this.race = race;
+        this.pronouns = pronouns;
+    }
+
+    /**
+     * @return position of the record in its corpus, starting at 0.
+     */
+    public long getRowId() {
+        return rowId;
+    }
+
+    /**
+     * @return index of the base passage the text was rendered from.
+     */
+    public int getPassageId() {
+        return passageId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Gender getGender() {
+        return gender;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public PronounSet getPronouns() {
+        return pronouns;
+    }
+}
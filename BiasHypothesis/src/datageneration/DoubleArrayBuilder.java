@@ -0,0 +1,74 @@
+package datageneration;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable buffer of primitive doubles. Used while parsing so scores are never boxed into a List of Double
+ * before being handed to the t-test as a double[].
+ */
+public class DoubleArrayBuilder {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private double[] values;
+    private int size;
+
+    public DoubleArrayBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleArrayBuilder(int initialCapacity) {
+        this.values = new double[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Appends a value, doubling the backing array when it is full.
+     * @param value value to append.
+     */
+    public void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Appends every value held by another builder, preserving its order.
+     * @param other builder to copy from.
+     */
+    public void addAll(DoubleArrayBuilder other) {
+        int required = size + other.size;
+        if (required > values.length) {
+            values = Arrays.copyOf(values, Math.max(required, values.length << 1));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size = required;
+    }
+
+    /**
+     * Appends the remaining values of a buffer, e.g. a memory mapped score column, in one bulk copy.
+     * The buffer's position is not changed.
+     * @param source buffer to copy from.
+     */
+    public void addAll(DoubleBuffer source) {
+        int count = source.remaining();
+        int required = size + count;
+        if (required > values.length) {
+            values = Arrays.copyOf(values, Math.max(required, values.length << 1));
+        }
+        source.duplicate().get(values, size, count);
+        size = required;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a trimmed copy of the values added so far.
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -1,104 +1,171 @@
 package datageneration;
 
-import enums.Gender;
-import enums.Race;
+import com.opencsv.CSVWriter;
+import com.opencsv.ICSVWriter;
+import metrics.Metrics;
+import metrics.StageMetrics;
 
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
 import java.util.List;
 
 public class GenerateSampleDataReport {
 
-    private static final String DIRECTORY = "/Users/sulscott/Documents/Comprehend_Bias/";
+    private static final String HEADER = "Text,Name,enums.Gender,enums.Race";
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final RowFormatter ROW_FORMATTER = new RowFormatter();
 
     /**
      * Generates a csv report using the text from datageneration.TextPassage and saves it to specified file location.
      * This file will be given to Comprehend for sentiment analysis.
-     * @param fileName location to be saved.
+     * @param fileName location to be saved, relative to the working directory.
      * @throws IOException exception.
      */
     public static void generateCSVReport(String fileName) throws IOException {
-        FileWriter csvWriter = new FileWriter(generateFilePath(fileName));
-        csvWriter.append("Text");
-        csvWriter.append(",");
-        csvWriter.append("Name");
-        csvWriter.append(",");
-        csvWriter.append("enums.Gender");
-        csvWriter.append(",");
-        csvWriter.append("enums.Race");
-        csvWriter.append("\n");
+        generateCSVReport(Paths.get(fileName));
+    }
 
-        for (List<String> rowData : generateBlackMenData()) {
-            csvWriter.append(String.join(",", rowData));
-            csvWriter.append("\n");
-        }
+    /**
+     * Generates the csv report described in generateCSVReport(String) at any location.
+     * @param file location to be saved.
+     * @throws IOException exception.
+     */
+    public static void generateCSVReport(Path file) throws IOException {
+        generateCSVReport(TextPassage.corpus(), file);
+    }
 
-        for (List<String> rowData : generateWhiteMenData()) {
-            csvWriter.append(String.join(",", rowData));
-            csvWriter.append("\n");
+    /**
+     * Generates the csv report of a corpus at any location, rendered in parallel.
+     * @param corpus generator of the rows.
+     * @param file location to be saved.
+     * @throws IOException exception.
+     */
+    public static void generateCSVReport(CorpusGenerator corpus, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), WRITE_BUFFER_BYTES)) {
+            writeCSVReport(out, corpus);
         }
+    }
 
-        for (List<String> rowData : generateWhiteWomenData()) {
-            csvWriter.append(String.join(",", rowData));
-            csvWriter.append("\n");
+    /**
+     * Writes the same csv report as writeCSVReport(Writer, CorpusGenerator), UTF-8 encoded, rendering the records
+     * on all cores. The bytes written do not depend on the number of cores.
+     * @param out destination of the report. Flushed but not closed.
+     * @param corpus generator of the rows.
+     * @throws IOException exception.
+     */
+    public static void writeCSVReport(OutputStream out, CorpusGenerator corpus) throws IOException {
+        new ParallelCorpusWriter().write(corpus, HEADER, GenerateSampleDataReport::toCSVRow, out);
+    }
+
+    /**
+     * Generates the csv report of a corpus split into shards, e.g. for a Comprehend batch job with many input
+     * documents. Every shard starts with the report header.
+     * @param corpus generator of the rows.
+     * @param directory directory the shards are written to.
+     * @param prefix file name prefix of every shard.
+     * @param maxRowsPerShard maximum rows per shard.
+     * @param maxBytesPerShard maximum uncompressed bytes per shard.
+     * @param gzip true to gzip the shards.
+     * @return the shards, in row order.
+     * @throws IOException exception.
+     */
+    public static List<Path> generateShardedCSVReport(CorpusGenerator corpus, Path directory, String prefix,
+                                                      long maxRowsPerShard, long maxBytesPerShard, boolean gzip)
+        throws IOException {
+        ShardedCSVWriter writer = new ShardedCSVWriter(directory, prefix, HEADER, maxRowsPerShard, maxBytesPerShard,
+            gzip, Runtime.getRuntime().availableProcessors());
+        StageMetrics.Span span = Metrics.GENERATE.start();
+        long rows = 0;
+        try {
+            Iterator<CorpusRecord> records = corpus.iterator();
+            while (records.hasNext()) {
+                writer.write(toCSVRow(records.next()));
+                rows++;
+            }
+        } finally {
+            writer.close();
+        }
+        span.finish(rows);
+        List<Path> shards = writer.getShards();
+        for (Path shard : shards) {
+            Metrics.GENERATE.addBytesWritten(Files.size(shard));
         }
+        return shards;
+    }
+
+    /**
+     * Writes the csv report described in generateCSVReport(String) to the given writer.
+     * @param csvWriter destination of the report. Flushed but not closed.
+     * @throws IOException exception.
+     */
+    public static void writeCSVReport(Writer csvWriter) throws IOException {
+        writeCSVReport(csvWriter, TextPassage.corpus());
+    }
 
-        for (List<String> rowData : generateBlackWomenData()) {
-            csvWriter.append(String.join(",", rowData));
+    /**
+     * Writes a csv report of every record of a corpus. Records are rendered and written one at a time, so
+     * memory stays flat however large the corpus is.
+     * @param csvWriter destination of the report. Flushed but not closed.
+     * @param corpus generator of the rows.
+     * @throws IOException exception.
+     */
+    public static void writeCSVReport(Writer csvWriter, CorpusGenerator corpus) throws IOException {
+        StageMetrics.Span span = Metrics.GENERATE.start();
+        long rows = 0;
+        csvWriter.append(HEADER);
+        csvWriter.append("\n");
+
+        Iterator<CorpusRecord> records = corpus.iterator();
+        while (records.hasNext()) {
+            csvWriter.append(toCSVRow(records.next()));
             csvWriter.append("\n");
+            rows++;
         }
 
         csvWriter.flush();
-        csvWriter.close();
+        span.finish(rows);
     }
 
-    private static String generateFilePath(String fileLocation) {
-        return DIRECTORY + fileLocation;
+    private static String toCSVRow(CorpusRecord record) {
+        return ROW_FORMATTER.format(new String[] {record.getText(), record.getName(),
+            record.getGender().toString(), record.getRace().toString()});
     }
 
-    private static List<List<String>> generateBlackMenData() {
-        List<List<String>> rows = new ArrayList<>();
-        for (int i = 0; i < TextPassage.getBlackMenNames().size(); i++) {
-            String text = TextPassage.getBlackMenText().get(i);
-            String name = TextPassage.getBlackMenNames().get(i);
-            rows.add(Arrays.asList(text, name, Gender.MALE.toString(), Race.BLACK.toString()));
-        }
-        return rows;
+    /**
+     * Writes the report to the given file, or to text_and_identifiers.csv in the working directory.
+     * Argument: [report.csv]
+     */
+    public static void main(String[] args) throws IOException {
+        generateCSVReport(args.length > 0 ? args[0] : "text_and_identifiers.csv");
     }
 
-    private static List<List<String>> generateWhiteMenData() {
-        List<List<String>> rows = new ArrayList<>();
-        for (int i = 0; i < TextPassage.getWhiteMenNames().size(); i++) {
-            String text = TextPassage.getWhiteMenText().get(i);
-            String name = TextPassage.getWhiteMenNames().get(i);
-            rows.add(Arrays.asList(text, name, Gender.MALE.toString(), Race.WHITE.toString()));
-        }
-        return rows;
-    }
+    /**
+     * Formats one row the way OpenCSV writes it, without the line end, so passages with commas, quotes or line
+     * breaks keep their columns. Fields are only quoted where needed, so the starter text is written as before.
+     * Holds no state between rows and is shared by the parallel and sharded writers.
+     */
+    private static final class RowFormatter extends CSVWriter {
 
-    private static List<List<String>> generateWhiteWomenData() {
-        List<List<String>> rows = new ArrayList<>();
-        for (int i = 0; i < TextPassage.getWhiteWomenNames().size(); i++) {
-            String text = TextPassage.getWhiteWomenText().get(i);
-            String name = TextPassage.getWhiteWomenNames().get(i);
-            rows.add(Arrays.asList(text, name, Gender.FEMALE.toString(), Race.WHITE.toString()));
+        RowFormatter() {
+            super(Writer.nullWriter(), ICSVWriter.DEFAULT_SEPARATOR, ICSVWriter.DEFAULT_QUOTE_CHARACTER,
+                ICSVWriter.DEFAULT_ESCAPE_CHARACTER, "");
         }
-        return rows;
-    }
 
-    private static List<List<String>> generateBlackWomenData() {
-        List<List<String>> rows = new ArrayList<>();
-        for (int i = 0; i < TextPassage.getBlackWomenNames().size(); i++) {
-            String text = TextPassage.getBlackWomenText().get(i);
-            String name = TextPassage.getBlackWomenNames().get(i);
-            rows.add(Arrays.asList(text, name, Gender.FEMALE.toString(), Race.BLACK.toString()));
+        String format(String[] row) {
+            StringBuilder line = new StringBuilder();
+            try {
+                writeNext(row, false, line);
+            } catch (IOException e) {
+                // appending to a StringBuilder cannot fail
+                throw new IllegalStateException(e);
+            }
+            return line.toString();
         }
-        return rows;
-    }
-
-    public static void main(String[] args) throws IOException {
-        generateCSVReport("text_and_identifiers.csv");
     }
 }
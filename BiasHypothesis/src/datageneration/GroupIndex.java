@@ -0,0 +1,215 @@
+package datageneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps rows to dense group ids for a set of groupings. Every attribute value is interned once per row into an
+ * AttributeDictionary code; a grouping's group id is then found by walking a small table indexed by those
+ * codes, so the per row work is one dictionary lookup per attribute and a few array reads per grouping. Group
+ * ids count up from 0 per grouping in order of first appearance.
+ *
+ * Rows whose value is not in an attribute's vocabulary are left out of every grouping that uses the attribute
+ * and counted per attribute and value, see getUnknownValues(). Used by the score group classes and by
+ * analyses that keep their own per group state. Not thread safe.
+ */
+public final class GroupIndex {
+
+    public static final int NO_GROUP = -1;
+
+    private final List<Grouping> groupings;
+    private final List<Attribute> attributes = new ArrayList<>();
+    private final List<AttributeDictionary> dictionaries = new ArrayList<>();
+    // per grouping, the positions of its attributes in the attributes list
+    private final int[][] attributeSlots;
+    private final CodeTable[] tables;
+    private final List<List<String>> keys = new ArrayList<>();
+    private final List<Map<String, Integer>> ids = new ArrayList<>();
+    private final Map<String, Map<String, Long>> unknownValues = new LinkedHashMap<>();
+    private final int[] codes;
+
+    public GroupIndex(List<Grouping> groupings) {
+        this.groupings = new ArrayList<>(groupings);
+        this.attributeSlots = new int[groupings.size()][];
+        this.tables = new CodeTable[groupings.size()];
+        for (int g = 0; g < groupings.size(); g++) {
+            Attribute[] groupingAttributes = groupings.get(g).getAttributes();
+            attributeSlots[g] = new int[groupingAttributes.length];
+            for (int i = 0; i < groupingAttributes.length; i++) {
+                int slot = attributes.indexOf(groupingAttributes[i]);
+                if (slot < 0) {
+                    slot = attributes.size();
+                    attributes.add(groupingAttributes[i]);
+                    dictionaries.add(groupingAttributes[i].newDictionary());
+                }
+                attributeSlots[g][i] = slot;
+            }
+            tables[g] = new CodeTable(groupingAttributes.length);
+            keys.add(new ArrayList<>());
+            ids.add(new HashMap<>());
+        }
+        this.codes = new int[attributes.size()];
+    }
+
+    public List<Grouping> getGroupings() {
+        return Collections.unmodifiableList(groupings);
+    }
+
+    /**
+     * @param grouping a grouping of this index.
+     * @return its position, or -1 if it is not part of this index.
+     */
+    public int indexOf(Grouping grouping) {
+        return groupings.indexOf(grouping);
+    }
+
+    /**
+     * Resolves the group of a row in every grouping, creating groups as new value combinations appear.
+     * @param row parsed csv row.
+     * @param groupIds filled with the group id per grouping, NO_GROUP if the row has an unknown value.
+     */
+    public void resolve(String[] row, int[] groupIds) {
+        for (int slot = 0; slot < codes.length; slot++) {
+            String value = row[attributes.get(slot).getColumn()];
+            codes[slot] = dictionaries.get(slot).code(value);
+            if (codes[slot] == AttributeDictionary.UNKNOWN) {
+                unknownValues.computeIfAbsent(attributes.get(slot).getName(), k -> new LinkedHashMap<>())
+                    .merge(value, 1L, Long::sum);
+            }
+        }
+        for (int g = 0; g < tables.length; g++) {
+            groupIds[g] = resolve(g);
+        }
+    }
+
+    private int resolve(int g) {
+        int[] slots = attributeSlots[g];
+        for (int slot : slots) {
+            if (codes[slot] == AttributeDictionary.UNKNOWN) {
+                return NO_GROUP;
+            }
+        }
+        int id = tables[g].find(codes, slots);
+        if (id == NO_GROUP) {
+            StringBuilder key = new StringBuilder(dictionaries.get(slots[0]).value(codes[slots[0]]));
+            for (int i = 1; i < slots.length; i++) {
+                key.append('_').append(dictionaries.get(slots[i]).value(codes[slots[i]]));
+            }
+            id = groupId(g, key.toString());
+            tables[g].put(codes, slots, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param g grouping position.
+     * @param key group key.
+     * @return the id of the group with that key, created if missing.
+     */
+    int groupId(int g, String key) {
+        Integer id = ids.get(g).get(key);
+        if (id == null) {
+            id = keys.get(g).size();
+            keys.get(g).add(key);
+            ids.get(g).put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param g grouping position.
+     * @param key group key.
+     * @return the id of the group with that key, or NO_GROUP.
+     */
+    public int findGroupId(int g, String key) {
+        Integer id = ids.get(g).get(key);
+        return id == null ? NO_GROUP : id;
+    }
+
+    /**
+     * @param g grouping position.
+     * @return the group keys of that grouping, indexed by group id.
+     */
+    public List<String> getKeys(int g) {
+        return Collections.unmodifiableList(keys.get(g));
+    }
+
+    /**
+     * Counts unknown values found elsewhere, e.g. by a parser of a later part of the same input.
+     * @param other counts to add.
+     */
+    void addUnknownValues(Map<String, Map<String, Long>> other) {
+        for (Map.Entry<String, Map<String, Long>> attribute : other.entrySet()) {
+            Map<String, Long> target = unknownValues.computeIfAbsent(attribute.getKey(), k -> new LinkedHashMap<>());
+            for (Map.Entry<String, Long> value : attribute.getValue().entrySet()) {
+                target.merge(value.getKey(), value.getValue(), Long::sum);
+            }
+        }
+    }
+
+    /**
+     * @return per attribute name, every value outside its vocabulary and the number of rows that had it.
+     */
+    public Map<String, Map<String, Long>> getUnknownValues() {
+        Map<String, Map<String, Long>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Long>> attribute : unknownValues.entrySet()) {
+            copy.put(attribute.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(attribute.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Group ids of one grouping by attribute codes. Level i is indexed by the code of the grouping's i-th
+     * attribute; inner levels point to the next node, the last level holds the group id. Entries are stored
+     * plus one so 0 means empty.
+     */
+    private static final class CodeTable {
+
+        private final int depth;
+        private final List<int[]> nodes = new ArrayList<>();
+
+        CodeTable(int depth) {
+            this.depth = depth;
+            nodes.add(new int[4]);
+        }
+
+        int find(int[] codes, int[] slots) {
+            int node = 0;
+            for (int level = 0; level < depth; level++) {
+                int[] entries = nodes.get(node);
+                int code = codes[slots[level]];
+                if (code >= entries.length || entries[code] == 0) {
+                    return NO_GROUP;
+                }
+                node = entries[code] - 1;
+            }
+            return node;
+        }
+
+        void put(int[] codes, int[] slots, int id) {
+            int node = 0;
+            for (int level = 0; level < depth; level++) {
+                int code = codes[slots[level]];
+                int[] entries = nodes.get(node);
+                if (code >= entries.length) {
+                    entries = Arrays.copyOf(entries, Math.max(code + 1, entries.length << 1));
+                    nodes.set(node, entries);
+                }
+                if (level == depth - 1) {
+                    entries[code] = id + 1;
+                } else {
+                    if (entries[code] == 0) {
+                        nodes.add(new int[4]);
+                        entries[code] = nodes.size();
+                    }
+                    node = entries[code] - 1;
+                }
+            }
+        }
+    }
+}
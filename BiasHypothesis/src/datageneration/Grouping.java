@@ -0,0 +1,102 @@
+package datageneration;
+
+import java.util.Arrays;
+
+/**
+ * Describes how result rows are split into groups: by the value of one attribute (race, gender) or by the
+ * combination of several attributes (race x gender). The group key of a combined grouping is the attribute values
+ * joined with an underscore, e.g. "BLACK_FEMALE".
+ */
+public class Grouping {
+
+    public static final Grouping RACE = new Grouping("race", Attribute.RACE);
+    public static final Grouping GENDER = new Grouping("gender", Attribute.GENDER);
+    public static final Grouping RACE_AND_GENDER = new Grouping("race_gender", Attribute.RACE, Attribute.GENDER);
+
+    private final String name;
+    private final Attribute[] attributes;
+    private final int[] columns;
+
+    /**
+     * Groups by the raw values of the given columns, accepting every value.
+     * @param name grouping name.
+     * @param columns indexes of the columns to group by.
+     */
+    public Grouping(String name, int... columns) {
+        this(name, openAttributes(columns));
+    }
+
+    /**
+     * @param name grouping name.
+     * @param attributes attributes to group by.
+     */
+    public Grouping(String name, Attribute... attributes) {
+        if (attributes.length == 0) {
+            throw new IllegalArgumentException("A grouping needs at least one column");
+        }
+        this.name = name;
+        this.attributes = attributes.clone();
+        this.columns = new int[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            columns[i] = attributes[i].getColumn();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    public Attribute[] getAttributes() {
+        return attributes.clone();
+    }
+
+    /**
+     * Builds the group key for a parsed row.
+     * @param row parsed csv row.
+     * @return the key of the group the row belongs to.
+     */
+    public String key(String[] row) {
+        if (columns.length == 1) {
+            return row[columns[0]];
+        }
+        StringBuilder key = new StringBuilder(row[columns[0]]);
+        for (int i = 1; i < columns.length; i++) {
+            key.append('_').append(row[columns[i]]);
+        }
+        return key.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Grouping)) {
+            return false;
+        }
+        Grouping other = (Grouping) o;
+        return name.equals(other.name) && Arrays.equals(attributes, other.attributes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + Arrays.hashCode(attributes);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static Attribute[] openAttributes(int[] columns) {
+        Attribute[] attributes = new Attribute[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            attributes[i] = new Attribute("column" + columns[i], columns[i]);
+        }
+        return attributes;
+    }
+}
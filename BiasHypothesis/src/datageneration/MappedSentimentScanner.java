@@ -0,0 +1,324 @@
+package datageneration;
+
+import metrics.Metrics;
+import metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads Comprehend result files by memory mapping them and scanning the raw bytes, as an alternative to the
+ * OpenCSV path in SentimentCSVParser. Only the delimiters up to the last column we need are located; the score is
+ * parsed straight from the bytes and label columns are resolved against a small per-column table, so a String
+ * is created only the first time each distinct label is seen.
+ *
+ * Accepts the same csv dialect OpenCSV reads by default: comma separated, optional double quotes with "" as
+ * the escape, \n or \r\n line endings.
+ */
+public class MappedSentimentScanner {
+
+    // largest window a single MappedByteBuffer can address
+    static final int MAX_WINDOW = Integer.MAX_VALUE;
+
+    // 10^15 < 2^53, so up to 15 significant digits fit a double exactly
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final int maxWindow;
+
+    public MappedSentimentScanner() {
+        this(MAX_WINDOW);
+    }
+
+    MappedSentimentScanner(int maxWindow) {
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     * Scans a result file and splits the positive sentiment scores by every given grouping.
+     * Files larger than 2GB are mapped window by window, each window ending on a row boundary.
+     *
+     * @param file result file with the headers described in SentimentCSVParser.
+     * @param groupings the groupings to build.
+     * @return the scores of every group of every grouping.
+     * @throws IOException if the file cannot be read or a row is malformed.
+     */
+    public ScoreGroups scan(Path file, Grouping... groupings) throws IOException {
+        List<Grouping> groupingList = Arrays.asList(groupings);
+        ScoreGroups groups = new ScoreGroups(groupingList);
+        RowScanner scanner = new RowScanner(groupingList, groups);
+        StageMetrics.Span span = Metrics.PARSE.start();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(size - position, maxWindow);
+                boolean lastWindow = position + length == size;
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = scanner.scan(window, 0, length, lastWindow, position);
+                if (consumed == 0 && !lastWindow) {
+                    throw new IOException("Row starting at byte " + position + " is longer than the mapping window");
+                }
+                position += consumed;
+            }
+            Metrics.PARSE.addBytesRead(size);
+        } catch (IOException | NumberFormatException e) {
+            Metrics.PARSE.addError();
+            throw e;
+        }
+
+        span.finish(scanner.rows);
+        return groups;
+    }
+
+    /**
+     * Scans the rows of one buffer region into the given groups. Used by ParallelSentimentReader, which hands
+     * each worker its own region and groups.
+     *
+     * @param buffer buffer holding csv bytes.
+     * @param from first byte of the region, must be the start of a row.
+     * @param to end of the region (exclusive), must be the end of a row.
+     * @param groupings groupings of the target groups.
+     * @param groups groups to fill.
+     * @param fileOffset offset of the buffer in its file, used in error messages.
+     * @return number of rows scanned.
+     * @throws IOException if a row is malformed.
+     */
+    static long scanRegion(ByteBuffer buffer, int from, int to, List<Grouping> groupings, ScoreGroups groups,
+                           long fileOffset) throws IOException {
+        RowScanner scanner = new RowScanner(groupings, groups);
+        try {
+            scanner.scan(buffer, from, to, true, fileOffset);
+        } catch (IOException | NumberFormatException e) {
+            Metrics.PARSE.addError();
+            throw e;
+        }
+        return scanner.rows;
+    }
+
+    /**
+     * Parses a plain decimal number such as 0.470313102 directly from bytes. Numbers the fast path cannot parse
+     * exactly (exponents, more than 15 significant digits) fall back to Double.parseDouble so the result always
+     * matches the OpenCSV path.
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int pos = from;
+        boolean negative = false;
+        if (pos < to && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; pos < to; pos++) {
+            byte b = buffer.get(pos);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0 && ++significantDigits > MAX_EXACT_DIGITS) {
+                    return parseSlow(buffer, from, to);
+                }
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return parseSlow(buffer, from, to);
+            }
+        }
+
+        if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseSlow(buffer, from, to);
+        }
+        // the mantissa (< 10^15 < 2^53) and the power of ten are both exact doubles, so the single division is
+        // correctly rounded, the same as Double.parseDouble
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return Double.parseDouble(new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Scanning state for one sequential pass. Not thread safe; parallel readers create one per region.
+     */
+    private static final class RowScanner {
+
+        private final ScoreGroups groups;
+        private final boolean[] projected;
+        private final LabelTable[] labels;
+        private final int lastColumn;
+        private final String[] row;
+
+        private double score;
+        private long rows;
+
+        RowScanner(List<Grouping> groupings, ScoreGroups groups) {
+            this.groups = groups;
+            int last = SentimentCSVParser.POSITIVE_COLUMN;
+            for (Grouping grouping : groupings) {
+                for (int column : grouping.getColumns()) {
+                    last = Math.max(last, column);
+                }
+            }
+            this.lastColumn = last;
+            this.projected = new boolean[last + 1];
+            this.labels = new LabelTable[last + 1];
+            this.row = new String[last + 1];
+            for (Grouping grouping : groupings) {
+                for (int column : grouping.getColumns()) {
+                    projected[column] = true;
+                    labels[column] = new LabelTable();
+                }
+            }
+            projected[SentimentCSVParser.POSITIVE_COLUMN] = true;
+        }
+
+        /**
+         * @return number of bytes consumed, always ending on a row boundary.
+         */
+        int scan(ByteBuffer buffer, int from, int to, boolean endOfInput, long fileOffset) throws IOException {
+            int rowStart = from;
+            int fieldStart = from;
+            int column = 0;
+            boolean quoted = false;
+
+            for (int pos = from; pos < to; pos++) {
+                byte b = buffer.get(pos);
+                if (quoted) {
+                    if (b == '"') {
+                        if (pos + 1 < to && buffer.get(pos + 1) == '"') {
+                            pos++;
+                        } else {
+                            quoted = false;
+                        }
+                    }
+                } else if (b == '"') {
+                    quoted = true;
+                } else if (b == ',') {
+                    field(buffer, column++, fieldStart, pos);
+                    fieldStart = pos + 1;
+                } else if (b == '\n') {
+                    int fieldEnd = pos > fieldStart && buffer.get(pos - 1) == '\r' ? pos - 1 : pos;
+                    endRow(buffer, column, fieldStart, fieldEnd, rowStart, fileOffset);
+                    column = 0;
+                    fieldStart = pos + 1;
+                    rowStart = pos + 1;
+                }
+            }
+
+            if (endOfInput && rowStart < to) {
+                endRow(buffer, column, fieldStart, to, rowStart, fileOffset);
+                rowStart = to;
+            }
+            return rowStart - from;
+        }
+
+        private void field(ByteBuffer buffer, int column, int from, int to) {
+            if (column > lastColumn || !projected[column]) {
+                return;
+            }
+            if (column == SentimentCSVParser.POSITIVE_COLUMN) {
+                if (to - from >= 2 && buffer.get(from) == '"') {
+                    from++;
+                    to--;
+                }
+                score = parseDouble(buffer, from, to);
+            }
+            if (labels[column] != null) {
+                row[column] = labels[column].lookup(buffer, from, to);
+            }
+        }
+
+        private void endRow(ByteBuffer buffer, int column, int fieldStart, int fieldEnd, int rowStart,
+                            long fileOffset) throws IOException {
+            if (column == 0 && fieldStart == fieldEnd) {
+                // blank line
+                return;
+            }
+            if (column < lastColumn) {
+                throw new IOException("Row at byte " + (fileOffset + rowStart) + " has " + (column + 1)
+                    + " columns, expected at least " + (lastColumn + 1));
+            }
+            field(buffer, column, fieldStart, fieldEnd);
+            groups.add(row, score);
+            rows++;
+        }
+    }
+
+    /**
+     * The distinct values of one label column. Label columns have very few distinct values, so a linear search
+     * over the raw bytes is cheaper than hashing them.
+     */
+    private static final class LabelTable {
+
+        private byte[][] raw = new byte[4][];
+        private String[] values = new String[4];
+        private int size;
+
+        String lookup(ByteBuffer buffer, int from, int to) {
+            int length = to - from;
+            for (int i = 0; i < size; i++) {
+                if (matches(raw[i], buffer, from, length)) {
+                    return values[i];
+                }
+            }
+            return add(buffer, from, length);
+        }
+
+        private static boolean matches(byte[] candidate, ByteBuffer buffer, int from, int length) {
+            if (candidate.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (candidate[i] != buffer.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String add(ByteBuffer buffer, int from, int length) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(from + i);
+            }
+            if (size == raw.length) {
+                raw = Arrays.copyOf(raw, size << 1);
+                values = Arrays.copyOf(values, size << 1);
+            }
+            raw[size] = bytes;
+            values[size] = decode(bytes);
+            return values[size++];
+        }
+
+        private static String decode(byte[] bytes) {
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+                value = value.substring(1, value.length() - 1).replace("\"\"", "\"");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package datageneration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores of two levels of one attribute matched by passage, e.g. the positive score of every black name paired with
+ * the white name in the same position of its name list, rendered from the same base passage with the same gender.
+ * Paired rows differ only in the compared attribute, so passage effects cancel out of their differences.
+ *
+ * Rows are blocked by base passage (see PassageFingerprint) and the values of the stratum attributes, and
+ * paired within a block by the index of their name in its NameList. Strata should hold every other attribute the
+ * name lists are split by, otherwise two names share a slot; such rows are counted in getDuplicateRows(). Pairs
+ * and blocks are found in one pass through open addressing tables of 64-bit keys, and scores are kept in primitive
+ * arrays indexed by pair.
+ */
+public class MatchedPairs {
+
+    private final int comparedColumn;
+    private final String level1;
+    private final String level2;
+    private final int[] strataColumns;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final KeyTable blockIds = new KeyTable();
+    private final KeyTable pairIds = new KeyTable();
+
+    private double[] scores1 = new double[64];
+    private double[] scores2 = new double[64];
+    private int[] pairBlocks = new int[64];
+    private long unknownNameRows;
+    private long duplicateRows;
+
+    /**
+     * @param compared attribute whose levels are compared, e.g. Attribute.RACE.
+     * @param level1 first level, e.g. "BLACK".
+     * @param level2 second level, e.g. "WHITE".
+     * @param nameLists name lists the corpus was generated from; a name's slot is its index in its list.
+     * @param strata attributes rows must share to be paired, e.g. Attribute.GENDER.
+     */
+    public MatchedPairs(Attribute compared, String level1, String level2, List<NameList> nameLists,
+                        Attribute... strata) {
+        this.comparedColumn = compared.getColumn();
+        this.level1 = level1;
+        this.level2 = level2;
+        this.strataColumns = new int[strata.length];
+        for (int i = 0; i < strata.length; i++) {
+            strataColumns[i] = strata[i].getColumn();
+        }
+        for (NameList nameList : nameLists) {
+            for (int slot = 0; slot < nameList.size(); slot++) {
+                slots.putIfAbsent(nameList.getNames().get(slot), slot);
+            }
+        }
+    }
+
+    /**
+     * Adds a row if it has one of the compared levels.
+     * @param row parsed csv row.
+     * @param score the row's score.
+     */
+    void add(String[] row, double score) {
+        String value = row[comparedColumn];
+        boolean first = value.equals(level1);
+        if (!first && !value.equals(level2)) {
+            return;
+        }
+        String name = row[SentimentCSVParser.NAME_COLUMN];
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            unknownNameRows++;
+            return;
+        }
+
+        long block = PassageFingerprint.of(row[SentimentCSVParser.TEXT_COLUMN], name);
+        for (int column : strataColumns) {
+            block = PassageFingerprint.combine(block, row[column].hashCode());
+        }
+        int blockId = blockIds.idOf(block);
+        int pairs = pairIds.size();
+        int pairId = pairIds.idOf(PassageFingerprint.combine(block, slot));
+        if (pairId == pairs) {
+            if (pairId == scores1.length) {
+                int capacity = scores1.length << 1;
+                scores1 = Arrays.copyOf(scores1, capacity);
+                scores2 = Arrays.copyOf(scores2, capacity);
+                pairBlocks = Arrays.copyOf(pairBlocks, capacity);
+            }
+            scores1[pairId] = Double.NaN;
+            scores2[pairId] = Double.NaN;
+            pairBlocks[pairId] = blockId;
+        }
+
+        double[] scores = first ? scores1 : scores2;
+        if (Double.isNaN(scores[pairId])) {
+            scores[pairId] = score;
+        } else {
+            duplicateRows++;
+        }
+    }
+
+    /**
+     * @return number of pairs with a row of both levels.
+     */
+    public int size() {
+        int size = 0;
+        for (int pair = 0; pair < pairIds.size(); pair++) {
+            if (isComplete(pair)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return scores of the first level, one per complete pair, aligned with getScores2().
+     */
+    public double[] getScores1() {
+        return completePairs(scores1);
+    }
+
+    /**
+     * @return scores of the second level, one per complete pair, aligned with getScores1().
+     */
+    public double[] getScores2() {
+        return completePairs(scores2);
+    }
+
+    /**
+     * @return score of the first level minus score of the second level, one per complete pair.
+     */
+    public double[] getDifferences() {
+        double[] differences = new double[size()];
+        int i = 0;
+        for (int pair = 0; pair < pairIds.size(); pair++) {
+            if (isComplete(pair)) {
+                differences[i++] = scores1[pair] - scores2[pair];
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * @return block of every complete pair, numbered from 0 in order of first appearance, aligned with
+     * getDifferences().
+     */
+    public int[] getBlocks() {
+        int[] renumbered = new int[blockIds.size()];
+        Arrays.fill(renumbered, -1);
+        int[] blocks = new int[size()];
+        int next = 0;
+        int i = 0;
+        for (int pair = 0; pair < pairIds.size(); pair++) {
+            if (isComplete(pair)) {
+                int block = pairBlocks[pair];
+                if (renumbered[block] < 0) {
+                    renumbered[block] = next++;
+                }
+                blocks[i++] = renumbered[block];
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * @return number of blocks holding at least one complete pair.
+     */
+    public int getBlockCount() {
+        int[] blocks = getBlocks();
+        int count = 0;
+        for (int block : blocks) {
+            count = Math.max(count, block + 1);
+        }
+        return count;
+    }
+
+    /**
+     * @return rows of a compared level whose partner of the other level was not found.
+     */
+    public long getUnpairedRows() {
+        long unpaired = 0;
+        for (int pair = 0; pair < pairIds.size(); pair++) {
+            if (!isComplete(pair)) {
+                unpaired++;
+            }
+        }
+        return unpaired;
+    }
+
+    /**
+     * @return rows of a compared level whose name is in none of the name lists.
+     */
+    public long getUnknownNameRows() {
+        return unknownNameRows;
+    }
+
+    /**
+     * @return rows left out because their pair already had a row of the same level.
+     */
+    public long getDuplicateRows() {
+        return duplicateRows;
+    }
+
+    private boolean isComplete(int pair) {
+        return !Double.isNaN(scores1[pair]) && !Double.isNaN(scores2[pair]);
+    }
+
+    private double[] completePairs(double[] scores) {
+        double[] values = new double[size()];
+        int i = 0;
+        for (int pair = 0; pair < pairIds.size(); pair++) {
+            if (isComplete(pair)) {
+                values[i++] = scores[pair];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Dense ids for 64-bit keys, in order of first appearance, by linear probing.
+     */
+    private static final class KeyTable {
+
+        private long[] keys = new long[64];
+        private int[] ids = new int[64];
+        private int size;
+
+        KeyTable() {
+            Arrays.fill(ids, -1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int idOf(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key ^ (key >>> 32)) & mask;
+            while (ids[slot] >= 0) {
+                if (keys[slot] == key) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            ids[slot] = size++;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+            return size - 1;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = new long[oldKeys.length << 1];
+            ids = new int[oldIds.length << 1];
+            Arrays.fill(ids, -1);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldIds[i] >= 0) {
+                    int slot = (int) (oldKeys[i] ^ (oldKeys[i] >>> 32)) & mask;
+                    while (ids[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    ids[slot] = oldIds[i];
+                }
+            }
+        }
+    }
+}
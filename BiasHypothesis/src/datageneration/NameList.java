@@ -0,0 +1,40 @@
+package datageneration;
+
+import enums.Gender;
+import enums.Race;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list of names that share the same perceived gender and race.
+ */
+public class NameList {
+
+    private final List<String> names;
+    private final Gender gender;
+    private final Race race;
+
+    public NameList(List<String> names, Gender gender, Race race) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.gender = gender;
+        this.race = race;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public Gender getGender() {
+        return gender;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,119 @@
+package datageneration;
+
+import metrics.Metrics;
+import metrics.StageMetrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Renders and encodes a corpus on a fork-join pool and writes it in corpus order.
+ *
+ * The record index space of the CorpusGenerator (passage x name list x name x pronoun set) is cut into work units
+ * of unitRows consecutive records. Each unit renders its records with CorpusGenerator.record and encodes them
+ * to UTF-8 on its own, and finished units are written strictly in unit order. Line i after the header is always
+ * record i, so the output is byte for byte the same whatever the pool's parallelism. At most two units per pool
+ * thread are held in memory at a time.
+ */
+public class ParallelCorpusWriter {
+
+    public static final int DEFAULT_UNIT_ROWS = 4096;
+
+    private final ForkJoinPool pool;
+    private final int unitRows;
+
+    public ParallelCorpusWriter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_UNIT_ROWS);
+    }
+
+    /**
+     * @param pool pool the units are rendered on.
+     * @param unitRows records per work unit.
+     */
+    public ParallelCorpusWriter(ForkJoinPool pool, int unitRows) {
+        if (unitRows <= 0) {
+            throw new IllegalArgumentException("unitRows must be positive: " + unitRows);
+        }
+        this.pool = pool;
+        this.unitRows = unitRows;
+    }
+
+    /**
+     * Writes a header line and one line per record.
+     * @param corpus records to write.
+     * @param header first line, without line break; null for none.
+     * @param format renders a record as one line, without line break. Called from pool threads.
+     * @param out destination. Flushed but not closed.
+     * @return number of bytes written.
+     * @throws IOException if the output cannot be written or a unit failed to render.
+     */
+    public long write(CorpusGenerator corpus, String header, Function<CorpusRecord, String> format,
+                      OutputStream out) throws IOException {
+        StageMetrics.Span span = Metrics.GENERATE.start();
+        long bytes = 0;
+        if (header != null) {
+            byte[] headerBytes = (header + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(headerBytes);
+            bytes += headerBytes.length;
+        }
+
+        long size = corpus.size();
+        long units = (size + unitRows - 1) / unitRows;
+        int window = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>(window);
+        long nextUnit = 0;
+        try {
+            while (nextUnit < units || !pending.isEmpty()) {
+                while (nextUnit < units && pending.size() < window) {
+                    long first = nextUnit * unitRows;
+                    long end = Math.min(size, first + unitRows);
+                    pending.add(pool.submit(() -> render(corpus, first, end, format)));
+                    nextUnit++;
+                }
+                byte[] unit = join(pending.poll());
+                out.write(unit);
+                bytes += unit.length;
+            }
+        } finally {
+            for (ForkJoinTask<byte[]> task : pending) {
+                task.cancel(false);
+            }
+        }
+        out.flush();
+
+        span.finish(size);
+        Metrics.GENERATE.addBytesWritten(bytes);
+        return bytes;
+    }
+
+    private static byte[] render(CorpusGenerator corpus, long first, long end,
+                                 Function<CorpusRecord, String> format) {
+        StringBuilder lines = new StringBuilder();
+        for (long rowId = first; rowId < end; rowId++) {
+            lines.append(format.apply(corpus.record(rowId))).append('\n');
+        }
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] join(ForkJoinTask<byte[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering the corpus", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package datageneration;
+
+import metrics.Metrics;
+import metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads a large result file, or a directory of result part-files from a Comprehend batch job, on all cores.
+ * Input is cut into chunks that end on line boundaries, each chunk is scanned by MappedSentimentScanner on a
+ * fork-join pool into its own ScoreGroups, and the chunks are merged back in input order. The merged groups
+ * are therefore identical to a sequential scan of the same input (part-files are read in file name order).
+ *
+ * Chunk boundaries are placed after a line break, so quoted fields must not contain line breaks. Passages
+ * generated by TextPassage never do.
+ */
+public class ParallelSentimentReader {
+
+    private static final int DEFAULT_CHUNK_BYTES = 16 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private final int maxWindow;
+
+    public ParallelSentimentReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param pool pool the chunks are scanned on.
+     * @param chunkBytes target chunk size; chunks are extended to the next line break.
+     */
+    public ParallelSentimentReader(ForkJoinPool pool, int chunkBytes) {
+        this(pool, chunkBytes, MappedSentimentScanner.MAX_WINDOW);
+    }
+
+    ParallelSentimentReader(ForkJoinPool pool, int chunkBytes, int maxWindow) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunkBytes must be positive: " + chunkBytes);
+        }
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     * Scans a result file, or every regular file in a directory, and splits the positive sentiment scores by
+     * every given grouping.
+     *
+     * @param input a result file or a directory of result part-files.
+     * @param groupings the groupings to build.
+     * @return the scores of every group of every grouping, in input order.
+     * @throws IOException if a file cannot be read or a row is malformed.
+     */
+    public ScoreGroups read(Path input, Grouping... groupings) throws IOException {
+        List<Grouping> groupingList = Arrays.asList(groupings);
+        StageMetrics.Span span = Metrics.PARSE.start();
+
+        List<Chunk> chunks = new ArrayList<>();
+        List<ForkJoinTask<ScoreGroups>> tasks = new ArrayList<>();
+        for (Path file : listInputFiles(input)) {
+            for (Chunk chunk : split(file)) {
+                chunks.add(chunk);
+                tasks.add(pool.submit(() -> chunk.scan(groupingList)));
+            }
+        }
+
+        ScoreGroups merged = new ScoreGroups(groupingList);
+        long rows = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            merged.merge(join(tasks.get(i)));
+            rows += chunks.get(i).rows;
+            Metrics.PARSE.addBytesRead(chunks.get(i).to - chunks.get(i).from);
+        }
+        span.finish(rows);
+        return merged;
+    }
+
+    private static List<Path> listInputFiles(Path input) throws IOException {
+        if (!Files.isDirectory(input)) {
+            return Arrays.asList(input);
+        }
+        try (Stream<Path> files = Files.list(input)) {
+            return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Maps the file window by window and cuts every window into chunks of about chunkBytes, each ending
+     * right after a line break (or at the end of the file).
+     */
+    private List<Chunk> split(Path file) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(size - position, maxWindow);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (position + length < size) {
+                    int lastLineEnd = lastLineEnd(window, length);
+                    if (lastLineEnd == 0) {
+                        throw new IOException("Row starting at byte " + position + " in " + file
+                            + " is longer than the mapping window");
+                    }
+                    length = lastLineEnd;
+                }
+
+                int from = 0;
+                while (from < length) {
+                    int to = from + chunkBytes >= length ? length : nextLineEnd(window, from + chunkBytes, length);
+                    chunks.add(new Chunk(window, from, to, position));
+                    from = to;
+                }
+                position += length;
+            }
+        }
+        return chunks;
+    }
+
+    private static int nextLineEnd(ByteBuffer buffer, int from, int limit) {
+        for (int pos = from - 1; pos < limit; pos++) {
+            if (buffer.get(pos) == '\n') {
+                return pos + 1;
+            }
+        }
+        return limit;
+    }
+
+    private static int lastLineEnd(ByteBuffer buffer, int limit) {
+        for (int pos = limit - 1; pos >= 0; pos--) {
+            if (buffer.get(pos) == '\n') {
+                return pos + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static ScoreGroups join(ForkJoinTask<ScoreGroups> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading results", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A line aligned region of a mapped window. Absolute reads do not touch the buffer position, so chunks of
+     * the same window can be scanned concurrently.
+     */
+    private static final class Chunk {
+
+        private final ByteBuffer window;
+        private final int from;
+        private final int to;
+        private final long windowOffset;
+        private long rows;
+
+        Chunk(ByteBuffer window, int from, int to, long windowOffset) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+            this.windowOffset = windowOffset;
+        }
+
+        ScoreGroups scan(List<Grouping> groupings) throws IOException {
+            ScoreGroups groups = new ScoreGroups(groupings);
+            rows = MappedSentimentScanner.scanRegion(window, from, to, groupings, groups, windowOffset);
+            return groups;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package datageneration;
+
+import enums.PronounSet;
+
+/**
+ * 64-bit fingerprint of the base passage a generated text was rendered from. The name, every third person
+ * pronoun and the verb agreeing with each subject pronoun are masked before hashing, so all variants of one base
+ * passage get the same fingerprint whatever name and pronouns they carry, and no passage id needs to travel
+ * through the scoring service.
+ */
+final class PassageFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char NAME_MARK = '\u0000';
+    private static final char PRONOUN_MARK = '\u0001';
+    private static final char VERB_MARK = '\u0002';
+    private static final String[] PRONOUNS = pronouns();
+
+    private PassageFingerprint() {
+    }
+
+    /**
+     * @param text rendered passage.
+     * @param name name the passage was rendered with.
+     * @return fingerprint of the passage with name and pronouns masked.
+     */
+    static long of(String text, String name) {
+        long hash = FNV_OFFSET;
+        int pos = 0;
+        int verbStart = -1;
+        while (pos < text.length()) {
+            if (!Character.isLetter(text.charAt(pos))) {
+                hash = (hash ^ text.charAt(pos)) * FNV_PRIME;
+                pos++;
+                continue;
+            }
+            int end = pos + 1;
+            while (end < text.length() && Character.isLetter(text.charAt(end))) {
+                end++;
+            }
+            int length = end - pos;
+            if (length == name.length() && text.regionMatches(pos, name, 0, length)) {
+                hash = (hash ^ NAME_MARK) * FNV_PRIME;
+            } else if (isPronoun(text, pos, length)) {
+                hash = (hash ^ PRONOUN_MARK) * FNV_PRIME;
+                if (isSubject(text, pos, length)) {
+                    verbStart = VerbAgreement.agreeingWordStart(text, end);
+                }
+            } else if (pos == verbStart) {
+                hash = (hash ^ VERB_MARK) * FNV_PRIME;
+            } else {
+                for (int i = pos; i < end; i++) {
+                    hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+                }
+            }
+            pos = end;
+        }
+        return hash;
+    }
+
+    /**
+     * @param key a 64-bit key.
+     * @param value value to fold into it.
+     * @return a key for the pair of both.
+     */
+    static long combine(long key, long value) {
+        long hash = (key ^ value) * 0x9e3779b97f4a7c15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static boolean isPronoun(String text, int from, int length) {
+        for (String pronoun : PRONOUNS) {
+            if (pronoun.length() == length && text.regionMatches(true, from, pronoun, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSubject(String text, int from, int length) {
+        for (PronounSet pronouns : PronounSet.values()) {
+            String subject = pronouns.getSubject();
+            if (subject.length() == length && text.regionMatches(true, from, subject, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] pronouns() {
+        PronounSet[] sets = PronounSet.values();
+        String[] pronouns = new String[sets.length * 4];
+        for (int i = 0; i < sets.length; i++) {
+            pronouns[4 * i] = sets[i].getSubject();
+            pronouns[4 * i + 1] = sets[i].getObject();
+            pronouns[4 * i + 2] = sets[i].getPossessive();
+            pronouns[4 * i + 3] = sets[i].getReflexive();
+        }
+        return pronouns;
+    }
+}
@@ -0,0 +1,167 @@
+package datageneration;
+
+import enums.PronounSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A base passage split once into literal text and slots for the name and the subject, object, possessive and
+ * reflexive pronouns, so every variant is rendered in a single pass instead of one regex replace per pronoun.
+ *
+ * The base passage uses a placeholder name (Arthur in TextPassage) and male pronouns. The placeholder is
+ * replaced wherever it occurs, including inside "Arthur Dent's". Pronouns are matched as whole words, either all
+ * lower case or with a capital first letter, and keep that capitalization when rendered. The verb agreeing with
+ * each subject pronoun gets a slot of its own, rendered in the plural for pronoun sets such as singular they; see
+ * VerbAgreement.
+ */
+public class PassageTemplate {
+
+    private enum Slot {
+        NAME, SUBJECT, OBJECT, POSSESSIVE, REFLEXIVE, VERB
+    }
+
+    private final String[] literals;
+    private final Slot[] slots;
+    private final boolean[] capitalized;
+    // singular and plural form of each VERB slot, null for the other slots
+    private final String[][] verbs;
+    private final int literalLength;
+
+    private PassageTemplate(List<String> literals, List<Slot> slots, List<Boolean> capitalized,
+                            List<String[]> verbs) {
+        this.literals = literals.toArray(new String[0]);
+        this.slots = slots.toArray(new Slot[0]);
+        this.verbs = verbs.toArray(new String[0][]);
+        this.capitalized = new boolean[slots.size()];
+        int length = 0;
+        for (int i = 0; i < this.capitalized.length; i++) {
+            this.capitalized[i] = capitalized.get(i);
+        }
+        for (String literal : this.literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Tokenizes a base passage.
+     * @param text base passage using the placeholder name and male pronouns.
+     * @param namePlaceholder name to be replaced, e.g. "Arthur".
+     * @return the compiled template.
+     */
+    public static PassageTemplate compile(String text, String namePlaceholder) {
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        List<Boolean> capitalized = new ArrayList<>();
+        List<String[]> verbs = new ArrayList<>();
+
+        int literalStart = 0;
+        int pos = 0;
+        int verbStart = -1;
+        while (pos < text.length()) {
+            if (text.startsWith(namePlaceholder, pos)) {
+                literals.add(text.substring(literalStart, pos));
+                slots.add(Slot.NAME);
+                capitalized.add(false);
+                verbs.add(null);
+                pos += namePlaceholder.length();
+                literalStart = pos;
+                continue;
+            }
+            if (!Character.isLetter(text.charAt(pos)) || (pos > 0 && Character.isLetter(text.charAt(pos - 1)))) {
+                pos++;
+                continue;
+            }
+
+            int wordEnd = pos;
+            while (wordEnd < text.length() && Character.isLetter(text.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            String word = text.substring(pos, wordEnd);
+            Slot slot = pronounSlot(word);
+            String plural = pos == verbStart ? VerbAgreement.plural(text, pos) : null;
+            if (slot != null || plural != null) {
+                literals.add(text.substring(literalStart, pos));
+                slots.add(slot != null ? slot : Slot.VERB);
+                capitalized.add(slot != null && Character.isUpperCase(word.charAt(0)));
+                verbs.add(slot != null ? null : new String[] {word, plural});
+                literalStart = wordEnd;
+            }
+            if (slot == Slot.SUBJECT) {
+                verbStart = VerbAgreement.agreeingWordStart(text, wordEnd);
+            }
+            pos = wordEnd;
+        }
+        literals.add(text.substring(literalStart));
+
+        return new PassageTemplate(literals, slots, capitalized, verbs);
+    }
+
+    private static Slot pronounSlot(String word) {
+        String lower = word.toLowerCase();
+        if (!word.equals(lower) && !word.equals(Character.toUpperCase(lower.charAt(0)) + lower.substring(1))) {
+            return null;
+        }
+        switch (lower) {
+            case "he":
+                return Slot.SUBJECT;
+            case "him":
+                return Slot.OBJECT;
+            case "his":
+                return Slot.POSSESSIVE;
+            case "himself":
+                return Slot.REFLEXIVE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Appends one variant of the passage to a buffer. Reusing the buffer across variants avoids growing a new
+     * one every time.
+     * @param out buffer to append to.
+     * @param name name to put in the name slots.
+     * @param pronouns pronouns to put in the pronoun slots.
+     */
+    public void render(StringBuilder out, String name, PronounSet pronouns) {
+        out.ensureCapacity(out.length() + literalLength + slots.length * Math.max(name.length(), 10));
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            String value = slots[i] == Slot.VERB
+                ? verbs[i][pronouns.isPlural() ? 1 : 0] : slotValue(slots[i], name, pronouns);
+            if (capitalized[i]) {
+                out.append(Character.toUpperCase(value.charAt(0))).append(value, 1, value.length());
+            } else {
+                out.append(value);
+            }
+        }
+        out.append(literals[slots.length]);
+    }
+
+    /**
+     * @param name name to put in the name slots.
+     * @param pronouns pronouns to put in the pronoun slots.
+     * @return one variant of the passage.
+     */
+    public String render(String name, PronounSet pronouns) {
+        StringBuilder out = new StringBuilder();
+        render(out, name, pronouns);
+        return out.toString();
+    }
+
+    private static String slotValue(Slot slot, String name, PronounSet pronouns) {
+        switch (slot) {
+            case NAME:
+                return name;
+            case SUBJECT:
+                return pronouns.getSubject();
+            case OBJECT:
+                return pronouns.getObject();
+            case POSSESSIVE:
+                return pronouns.getPossessive();
+            default:
+                return pronouns.getReflexive();
+        }
+    }
+}
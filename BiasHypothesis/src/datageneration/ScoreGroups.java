@@ -0,0 +1,145 @@
+package datageneration;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Positive sentiment scores split by every requested grouping, filled in a single pass over a result file.
+ * Rows are mapped to groups through a GroupIndex, so grouping a row costs one dictionary lookup per attribute
+ * and the scores of a group are found by array index. Groups keep rows in file order.
+ */
+public class ScoreGroups {
+
+    private final GroupIndex index;
+    private final List<List<DoubleArrayBuilder>> groups = new ArrayList<>();
+    private final int[] groupIds;
+
+    public ScoreGroups(List<Grouping> groupings) {
+        this.index = new GroupIndex(groupings);
+        for (int g = 0; g < groupings.size(); g++) {
+            groups.add(new ArrayList<>());
+        }
+        this.groupIds = new int[groupings.size()];
+    }
+
+    /**
+     * Adds a row's score to the matching group of every grouping. Groupings for which the row has a value
+     * outside an attribute's vocabulary skip the row; the value is counted in getUnknownValues().
+     * @param row parsed csv row.
+     * @param score the row's score.
+     */
+    void add(String[] row, double score) {
+        index.resolve(row, groupIds);
+        for (int g = 0; g < groupIds.length; g++) {
+            if (groupIds[g] != GroupIndex.NO_GROUP) {
+                builder(g, groupIds[g]).add(score);
+            }
+        }
+    }
+
+    /**
+     * Adds a run of scores that all belong to the same group of one grouping.
+     * @param grouping grouping the key belongs to.
+     * @param key group key.
+     * @param scores scores to append.
+     */
+    void addAll(Grouping grouping, String key, DoubleBuffer scores) {
+        int g = indexOf(grouping);
+        builder(g, index.groupId(g, key)).addAll(scores);
+    }
+
+    /**
+     * Appends every group of another instance built with the same groupings, e.g. the result of parsing a later
+     * part of the same input.
+     * @param other groups to append.
+     */
+    void merge(ScoreGroups other) {
+        for (Grouping grouping : other.index.getGroupings()) {
+            int g = indexOf(grouping);
+            int otherG = other.index.indexOf(grouping);
+            List<String> otherKeys = other.index.getKeys(otherG);
+            for (int id = 0; id < otherKeys.size(); id++) {
+                builder(g, index.groupId(g, otherKeys.get(id))).addAll(other.groups.get(otherG).get(id));
+            }
+        }
+        index.addUnknownValues(other.index.getUnknownValues());
+    }
+
+    /**
+     * Counts unknown values found while building the same groups elsewhere.
+     * @param unknownValues per attribute name, value and row count.
+     */
+    void addUnknownValues(Map<String, Map<String, Long>> unknownValues) {
+        index.addUnknownValues(unknownValues);
+    }
+
+    public Set<Grouping> getGroupings() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.getGroupings()));
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @return the group keys seen for that grouping, in order of first appearance.
+     */
+    public Set<String> getKeys(Grouping grouping) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.getKeys(indexOf(grouping))));
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @param key group key, e.g. "BLACK" or "BLACK_FEMALE".
+     * @return the scores of that group, or an empty array if no row had that key.
+     */
+    public double[] get(Grouping grouping, String key) {
+        int g = indexOf(grouping);
+        int id = index.findGroupId(g, key);
+        return id == GroupIndex.NO_GROUP ? new double[0] : groups.get(g).get(id).toArray();
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @param key group key to leave out.
+     * @return the scores of every group except the given one, group by group. Rows with unknown values are not
+     * part of any group.
+     */
+    public double[] getAllExcept(Grouping grouping, String key) {
+        int g = indexOf(grouping);
+        List<String> keys = index.getKeys(g);
+        DoubleArrayBuilder combined = new DoubleArrayBuilder();
+        for (int id = 0; id < keys.size(); id++) {
+            if (!keys.get(id).equals(key)) {
+                combined.addAll(groups.get(g).get(id));
+            }
+        }
+        return combined.toArray();
+    }
+
+    /**
+     * @return per attribute name, every value outside the attribute's vocabulary and the number of rows that had
+     * it. Empty if every row could be grouped.
+     */
+    public Map<String, Map<String, Long>> getUnknownValues() {
+        return index.getUnknownValues();
+    }
+
+    private DoubleArrayBuilder builder(int g, int id) {
+        List<DoubleArrayBuilder> builders = groups.get(g);
+        if (id == builders.size()) {
+            builders.add(new DoubleArrayBuilder());
+        }
+        return builders.get(id);
+    }
+
+    private int indexOf(Grouping grouping) {
+        int g = index.indexOf(grouping);
+        if (g < 0) {
+            throw new IllegalArgumentException("Grouping was not requested when parsing: " + grouping);
+        }
+        return g;
+    }
+}
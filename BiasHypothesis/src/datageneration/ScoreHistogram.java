@@ -0,0 +1,109 @@
+package datageneration;
+
+import org.apache.commons.math3.exception.NotANumberException;
+
+import java.util.Arrays;
+
+/**
+ * Counts of scores in equal width bins over [0, 1], the range of Comprehend confidence scores. Built while a
+ * result file is parsed, it summarizes a group of any size in fixed memory and lets RankTest run approximate
+ * Mann-Whitney U and Kolmogorov-Smirnov tests without sorting the scores. Scores in the same bin are treated as
+ * ties, so with DEFAULT_BINS the ranks and empirical distribution functions are those of the scores rounded to
+ * about 1.5e-5. Scores outside [0, 1] are counted in the first or last bin.
+ */
+public class ScoreHistogram {
+
+    public static final int DEFAULT_BINS = 1 << 16;
+
+    private final long[] counts;
+    private long count;
+
+    public ScoreHistogram() {
+        this(DEFAULT_BINS);
+    }
+
+    /**
+     * @param bins number of bins over [0, 1].
+     */
+    public ScoreHistogram(int bins) {
+        if (bins <= 0) {
+            throw new IllegalArgumentException("bins must be positive: " + bins);
+        }
+        this.counts = new long[bins];
+    }
+
+    /**
+     * @param scores scores to count.
+     * @return a histogram with DEFAULT_BINS holding every score.
+     */
+    public static ScoreHistogram of(double[] scores) {
+        ScoreHistogram histogram = new ScoreHistogram();
+        for (double score : scores) {
+            histogram.add(score);
+        }
+        return histogram;
+    }
+
+    /**
+     * Counts a score. Scores outside [0, 1] go to the first or last bin.
+     * @param score the score.
+     * @throws NotANumberException if the score is NaN, as RankTest rejects NaN in arrays.
+     */
+    public void add(double score) throws NotANumberException {
+        if (Double.isNaN(score)) {
+            throw new NotANumberException();
+        }
+        int bin = (int) (score * counts.length);
+        counts[Math.max(0, Math.min(counts.length - 1, bin))]++;
+        count++;
+    }
+
+    /**
+     * @param other histogram with the same number of bins.
+     */
+    public void merge(ScoreHistogram other) {
+        if (other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Histograms have " + counts.length + " and " + other.counts.length
+                + " bins");
+        }
+        for (int bin = 0; bin < counts.length; bin++) {
+            counts[bin] += other.counts[bin];
+        }
+        count += other.count;
+    }
+
+    public int getBins() {
+        return counts.length;
+    }
+
+    /**
+     * @param bin bin index, 0 for the lowest scores.
+     * @return number of scores in the bin.
+     */
+    public long getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * @return number of scores counted.
+     */
+    public long size() {
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ScoreHistogram)) {
+            return false;
+        }
+        return Arrays.equals(counts, ((ScoreHistogram) o).counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+}
@@ -0,0 +1,109 @@
+package datageneration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Positive sentiment score histograms split by every requested grouping, filled in a single pass over a result
+ * file. The fixed memory counterpart of ScoreGroups for files too large to keep every score of every group.
+ * Rows are mapped to groups through a GroupIndex.
+ */
+public class ScoreHistogramGroups {
+
+    private final GroupIndex index;
+    private final int bins;
+    private final List<List<ScoreHistogram>> groups = new ArrayList<>();
+    private final int[] groupIds;
+
+    /**
+     * @param groupings groupings to build.
+     * @param bins number of bins of every histogram.
+     */
+    public ScoreHistogramGroups(List<Grouping> groupings, int bins) {
+        this.index = new GroupIndex(groupings);
+        this.bins = bins;
+        for (int g = 0; g < groupings.size(); g++) {
+            groups.add(new ArrayList<>());
+        }
+        this.groupIds = new int[groupings.size()];
+    }
+
+    /**
+     * Counts a row's score in the matching group of every grouping. Groupings for which the row has a value
+     * outside an attribute's vocabulary skip the row; the value is counted in getUnknownValues().
+     * @param row parsed csv row.
+     * @param score the row's score.
+     */
+    void add(String[] row, double score) {
+        index.resolve(row, groupIds);
+        for (int g = 0; g < groupIds.length; g++) {
+            if (groupIds[g] != GroupIndex.NO_GROUP) {
+                List<ScoreHistogram> histograms = groups.get(g);
+                if (groupIds[g] == histograms.size()) {
+                    histograms.add(new ScoreHistogram(bins));
+                }
+                histograms.get(groupIds[g]).add(score);
+            }
+        }
+    }
+
+    public Set<Grouping> getGroupings() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.getGroupings()));
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @return the group keys seen for that grouping, in order of first appearance.
+     */
+    public Set<String> getKeys(Grouping grouping) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.getKeys(indexOf(grouping))));
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @param key group key, e.g. "BLACK" or "BLACK_FEMALE".
+     * @return the histogram of that group, empty if no row had that key.
+     */
+    public ScoreHistogram get(Grouping grouping, String key) {
+        int g = indexOf(grouping);
+        int id = index.findGroupId(g, key);
+        return id == GroupIndex.NO_GROUP ? new ScoreHistogram(bins) : groups.get(g).get(id);
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @param key group key to leave out.
+     * @return the merged histogram of every group except the given one.
+     */
+    public ScoreHistogram getAllExcept(Grouping grouping, String key) {
+        int g = indexOf(grouping);
+        List<String> keys = index.getKeys(g);
+        ScoreHistogram combined = new ScoreHistogram(bins);
+        for (int id = 0; id < keys.size(); id++) {
+            if (!keys.get(id).equals(key)) {
+                combined.merge(groups.get(g).get(id));
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * @return per attribute name, every value outside the attribute's vocabulary and the number of rows that had
+     * it. Empty if every row could be grouped.
+     */
+    public Map<String, Map<String, Long>> getUnknownValues() {
+        return index.getUnknownValues();
+    }
+
+    private int indexOf(Grouping grouping) {
+        int g = index.indexOf(grouping);
+        if (g < 0) {
+            throw new IllegalArgumentException("Grouping was not requested when parsing: " + grouping);
+        }
+        return g;
+    }
+}
@@ -4,102 +4,476 @@ import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 import enums.Gender;
 import enums.Race;
+import enums.ScoreColumn;
+import enums.Sentiment;
+import metrics.Metrics;
+import metrics.StageMetrics;
+import scoring.LocalScoring;
+import scoring.ScoreCache;
+import scoring.SentimentResult;
 
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 public class SentimentCSVParser {
 
-    private static final String DIRECTORY = "/Users/sulscott/Documents/Comprehend_Bias/";
+    // input file has headings in this order:
+    // text, name, gender, race, sentimentScore, positive, mixed, negative, neutral
+    public static final int TEXT_COLUMN = 0;
+    public static final int NAME_COLUMN = 1;
+    public static final int GENDER_COLUMN = 2;
+    public static final int RACE_COLUMN = 3;
+    public static final int SENTIMENT_COLUMN = 4;
+    public static final int POSITIVE_COLUMN = 5;
+    public static final int MIXED_COLUMN = 6;
+    public static final int NEGATIVE_COLUMN = 7;
+    public static final int NEUTRAL_COLUMN = 8;
 
+    private final Path directory;
 
     /**
-     * Returns a List of double arrays. the first array represents the positive sentiment scores (confidence)
-     * for each "white sounding" name in the data set, male and female. The second array represents the positive
-     * sentiment scores (confidence) for each "black sounding" name in the data set, male and female.
+     * Resolves file names against the working directory.
+     */
+    public SentimentCSVParser() {
+        this(Paths.get(""));
+    }
+
+    /**
+     * @param directory directory file names are resolved against.
+     */
+    public SentimentCSVParser(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the file once and splits the positive sentiment scores (confidence) by every given grouping at the
+     * same time, so race, gender and race x gender comparisons do not each need their own pass over the file.
      *
      * @param fileName the file to search. See method comments for headers.
-     * @return List of double arrays as described above.
+     * @param groupings the groupings to build, e.g. Grouping.RACE and Grouping.GENDER.
+     * @return the scores of every group of every grouping.
      * @throws IOException exception.
      * @throws CsvValidationException exception.
      */
-    public List<double[]> getBlackNameVsWhiteNameArrays(String fileName) throws IOException, CsvValidationException {
-        // input file has headings in this order:
-        // text, name, gender, race, sentimentScore, positive, mixed, negative, neutral
-        String strFile = DIRECTORY + fileName;
-        CSVReader reader = new CSVReader(new FileReader(strFile));
-        String[] nextLine;
+    public ScoreGroups getScoreGroups(String fileName, Grouping... groupings)
+        throws IOException, CsvValidationException {
+        File file = directory.resolve(fileName).toFile();
+        try (Reader reader = new FileReader(file)) {
+            ScoreGroups groups = getScoreGroups(reader, groupings);
+            Metrics.PARSE.addBytesRead(file.length());
+            return groups;
+        }
+    }
 
-        List<Double> blackNameList = new ArrayList<>();
-        List<Double> whiteNameList = new ArrayList<>();
+    /**
+     * Same as getScoreGroups(String, Grouping...) but reads from an already opened source.
+     *
+     * @param source csv content with the headers described above. Not closed by this method.
+     * @param groupings the groupings to build.
+     * @return the scores of every group of every grouping.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public ScoreGroups getScoreGroups(Reader source, Grouping... groupings)
+        throws IOException, CsvValidationException {
+        ScoreGroups groups = new ScoreGroups(Arrays.asList(groupings));
+        CSVReader reader = new CSVReader(source);
+        StageMetrics.Span span = Metrics.PARSE.start();
+        String[] nextLine;
 
-        while ((nextLine = reader.readNext()) != null) {
-            if (nextLine[3].equals(Race.BLACK.toString())) {
-                blackNameList.add(Double.valueOf(nextLine[5]));
-            } else {
-                whiteNameList.add(Double.valueOf(nextLine[5]));
+        try {
+            while ((nextLine = reader.readNext()) != null) {
+                groups.add(nextLine, Double.parseDouble(nextLine[POSITIVE_COLUMN]));
             }
+        } catch (IOException | CsvValidationException | RuntimeException e) {
+            Metrics.PARSE.addError();
+            throw e;
         }
 
-        double[] blackNameArray = convertToPrimitiveDoubleArray(blackNameList);
-        double[] whiteNameArray = convertToPrimitiveDoubleArray(whiteNameList);
+        span.finish(reader.getRecordsRead());
+        return groups;
+    }
 
-        reader.close();
+    /**
+     * Reads the file once and splits all four scores and the dominant sentiment label by every given grouping,
+     * so every score dimension and the label distribution can be tested without parsing the file again.
+     *
+     * @param fileName the file to search. See method comments for headers.
+     * @param groupings the groupings to build.
+     * @return the columns of every group of every grouping.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public SentimentColumnGroups getSentimentColumnGroups(String fileName, Grouping... groupings)
+        throws IOException, CsvValidationException {
+        File file = directory.resolve(fileName).toFile();
+        try (Reader reader = new FileReader(file)) {
+            SentimentColumnGroups groups = getSentimentColumnGroups(reader, groupings);
+            Metrics.PARSE.addBytesRead(file.length());
+            return groups;
+        }
+    }
 
-        return Arrays.asList(blackNameArray, whiteNameArray);
+    /**
+     * Same as getSentimentColumnGroups(String, Grouping...) but reads from an already opened source.
+     *
+     * @param source csv content with the headers described above. Not closed by this method.
+     * @param groupings the groupings to build.
+     * @return the columns of every group of every grouping.
+     * @throws IOException if a row has an unknown sentiment label.
+     * @throws CsvValidationException exception.
+     */
+    public SentimentColumnGroups getSentimentColumnGroups(Reader source, Grouping... groupings)
+        throws IOException, CsvValidationException {
+        return getSentimentColumnGroups(source, Collections.<MatchedPairs>emptyList(), groupings);
     }
 
     /**
-     * Returns a List of double arrays. the first array represents the positive sentiment scores (confidence)
-     * for each "female sounding" name in the data set, black and white. The second array represents the positive
-     * sentiment scores (confidence) for each "male sounding" name in the data set, black and white.
+     * Same as getSentimentColumnGroups(Reader, List, Grouping...) on a UTF-8 file, recording the bytes read in the
+     * parse metrics.
+     *
+     * @param file the file to search, resolved against the working directory if relative.
+     * @param matchedPairs empty pairs to fill in the same pass.
+     * @param groupings the groupings to build.
+     * @return the columns of every group of every grouping.
+     * @throws IOException if the file cannot be read or a row has an unknown sentiment label.
+     * @throws CsvValidationException exception.
+     */
+    public SentimentColumnGroups getSentimentColumnGroups(Path file, List<MatchedPairs> matchedPairs,
+                                                          Grouping... groupings)
+        throws IOException, CsvValidationException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            SentimentColumnGroups groups = getSentimentColumnGroups(reader, matchedPairs, groupings);
+            Metrics.PARSE.addBytesRead(Files.size(file));
+            return groups;
+        }
+    }
+
+    /**
+     * Same as getSentimentColumnGroups(Reader, Grouping...), and in the same pass pairs the positive scores of
+     * every row into each of the given matched pairs, so the matched tests need no further read of the source.
+     *
+     * @param source csv content with the headers described above. Not closed by this method.
+     * @param matchedPairs empty pairs to fill, e.g. new MatchedPairs(Attribute.RACE, "BLACK", "WHITE", ...).
+     * @param groupings the groupings to build.
+     * @return the columns of every group of every grouping.
+     * @throws IOException if a row has an unknown sentiment label.
+     * @throws CsvValidationException exception.
+     */
+    public SentimentColumnGroups getSentimentColumnGroups(Reader source, List<MatchedPairs> matchedPairs,
+                                                          Grouping... groupings)
+        throws IOException, CsvValidationException {
+        SentimentColumnGroups groups = new SentimentColumnGroups(Arrays.asList(groupings));
+        CSVReader reader = new CSVReader(source);
+        double[] scores = new double[ScoreColumn.values().length];
+        StageMetrics.Span span = Metrics.PARSE.start();
+        String[] nextLine;
+
+        try {
+            while ((nextLine = reader.readNext()) != null) {
+                Sentiment label;
+                try {
+                    label = Sentiment.valueOf(nextLine[SENTIMENT_COLUMN]);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown sentiment '" + nextLine[SENTIMENT_COLUMN] + "' on line "
+                        + reader.getLinesRead());
+                }
+                // score columns follow POSITIVE_COLUMN in ScoreColumn order
+                for (int column = 0; column < scores.length; column++) {
+                    scores[column] = Double.parseDouble(nextLine[POSITIVE_COLUMN + column]);
+                }
+                groups.add(nextLine, label, scores);
+                for (MatchedPairs pairs : matchedPairs) {
+                    pairs.add(nextLine, scores[ScoreColumn.POSITIVE.ordinal()]);
+                }
+            }
+        } catch (IOException | CsvValidationException | RuntimeException e) {
+            Metrics.PARSE.addError();
+            throw e;
+        }
+
+        span.finish(reader.getRecordsRead());
+        return groups;
+    }
+
+    /**
+     * Reads the file once and counts the positive scores of every group into a ScoreHistogram instead of keeping
+     * them, for approximate rank tests on files too large to hold in memory.
      *
      * @param fileName the file to search. See method comments for headers.
-     * @return List of double arrays as described above.
+     * @param bins number of bins of every histogram, e.g. ScoreHistogram.DEFAULT_BINS.
+     * @param groupings the groupings to build.
+     * @return the histograms of every group of every grouping.
      * @throws IOException exception.
      * @throws CsvValidationException exception.
      */
-    public List<double[]> getMaleNameVsFemaleNameArrays(String fileName) throws IOException, CsvValidationException {
-        // input file has headings in this order:
-        // text, name, gender, race, sentimentScore, positive, mixed, negative, neutral
-        String strFile = DIRECTORY + fileName;
-        CSVReader reader = new CSVReader(new FileReader(strFile));
+    public ScoreHistogramGroups getScoreHistograms(String fileName, int bins, Grouping... groupings)
+        throws IOException, CsvValidationException {
+        File file = directory.resolve(fileName).toFile();
+        try (Reader reader = new FileReader(file)) {
+            ScoreHistogramGroups groups = getScoreHistograms(reader, bins, groupings);
+            Metrics.PARSE.addBytesRead(file.length());
+            return groups;
+        }
+    }
+
+    /**
+     * Same as getScoreHistograms(String, int, Grouping...) but reads from an already opened source.
+     *
+     * @param source csv content with the headers described above. Not closed by this method.
+     * @param bins number of bins of every histogram.
+     * @param groupings the groupings to build.
+     * @return the histograms of every group of every grouping.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public ScoreHistogramGroups getScoreHistograms(Reader source, int bins, Grouping... groupings)
+        throws IOException, CsvValidationException {
+        ScoreHistogramGroups groups = new ScoreHistogramGroups(Arrays.asList(groupings), bins);
+        CSVReader reader = new CSVReader(source);
+        StageMetrics.Span span = Metrics.PARSE.start();
         String[] nextLine;
 
-        List<Double> maleNameList = new ArrayList<>();
-        List<Double> femaleNameList = new ArrayList<>();
+        try {
+            while ((nextLine = reader.readNext()) != null) {
+                groups.add(nextLine, Double.parseDouble(nextLine[POSITIVE_COLUMN]));
+            }
+        } catch (IOException | CsvValidationException | RuntimeException e) {
+            Metrics.PARSE.addError();
+            throw e;
+        }
 
-        while ((nextLine = reader.readNext()) != null) {
-            if (nextLine[2].equals(Gender.MALE.toString())) {
-                maleNameList.add(Double.valueOf(nextLine[5]));
-            } else {
-                femaleNameList.add(Double.valueOf(nextLine[5]));
+        span.finish(reader.getRecordsRead());
+        return groups;
+    }
+
+    /**
+     * Reads the file once and pairs the positive scores of two levels of an attribute that were rendered from the
+     * same base passage, for the paired and blocked tests of MatchedTest. Names are slotted by their index in
+     * TextPassage.getNameLists().
+     *
+     * @param fileName the file to search. See method comments for headers.
+     * @param compared attribute whose levels are compared, e.g. Attribute.RACE.
+     * @param level1 first level, e.g. "BLACK".
+     * @param level2 second level, e.g. "WHITE".
+     * @param strata attributes paired rows must share, e.g. Attribute.GENDER.
+     * @return the matched scores.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public MatchedPairs getMatchedPairs(String fileName, Attribute compared, String level1, String level2,
+                                        Attribute... strata) throws IOException, CsvValidationException {
+        File file = directory.resolve(fileName).toFile();
+        try (Reader reader = new FileReader(file)) {
+            MatchedPairs pairs = getMatchedPairs(reader, compared, level1, level2, strata);
+            Metrics.PARSE.addBytesRead(file.length());
+            return pairs;
+        }
+    }
+
+    /**
+     * Same as getMatchedPairs(String, Attribute, String, String, Attribute...) but reads from an already opened
+     * source.
+     *
+     * @param source csv content with the headers described above. Not closed by this method.
+     * @param compared attribute whose levels are compared.
+     * @param level1 first level.
+     * @param level2 second level.
+     * @param strata attributes paired rows must share.
+     * @return the matched scores.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public MatchedPairs getMatchedPairs(Reader source, Attribute compared, String level1, String level2,
+                                        Attribute... strata) throws IOException, CsvValidationException {
+        return getMatchedPairs(source, TextPassage.getNameLists(), compared, level1, level2, strata);
+    }
+
+    /**
+     * Same as getMatchedPairs(Reader, Attribute, String, String, Attribute...) for a corpus generated from other
+     * name lists than TextPassage's.
+     *
+     * @param source csv content with the headers described above. Not closed by this method.
+     * @param nameLists name lists the corpus was generated from; names are slotted by their index in their list.
+     * @param compared attribute whose levels are compared.
+     * @param level1 first level.
+     * @param level2 second level.
+     * @param strata attributes paired rows must share.
+     * @return the matched scores.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public MatchedPairs getMatchedPairs(Reader source, List<NameList> nameLists, Attribute compared, String level1,
+                                        String level2, Attribute... strata)
+        throws IOException, CsvValidationException {
+        MatchedPairs pairs = new MatchedPairs(compared, level1, level2, nameLists, strata);
+        CSVReader reader = new CSVReader(source);
+        StageMetrics.Span span = Metrics.PARSE.start();
+        String[] nextLine;
+
+        try {
+            while ((nextLine = reader.readNext()) != null) {
+                pairs.add(nextLine, Double.parseDouble(nextLine[POSITIVE_COLUMN]));
             }
+        } catch (IOException | CsvValidationException | RuntimeException e) {
+            Metrics.PARSE.addError();
+            throw e;
         }
 
-        double[] maleNameArray = convertToPrimitiveDoubleArray(maleNameList);
-        double[] femaleNameArray = convertToPrimitiveDoubleArray(femaleNameList);
+        span.finish(reader.getRecordsRead());
+        return pairs;
+    }
+
+    /**
+     * Same result as getScoreGroups(String, Grouping...) but memory maps the file and scans its bytes with
+     * MappedSentimentScanner instead of going through OpenCSV. Preferred for large batch job outputs.
+     *
+     * @param fileName the file to search. See method comments for headers.
+     * @param groupings the groupings to build.
+     * @return the scores of every group of every grouping.
+     * @throws IOException exception.
+     */
+    public ScoreGroups getScoreGroupsFromMappedFile(String fileName, Grouping... groupings) throws IOException {
+        return new MappedSentimentScanner().scan(directory.resolve(fileName), groupings);
+    }
 
-        reader.close();
+    /**
+     * Same result as getScoreGroups(String, Grouping...) but scans the input on all cores with
+     * ParallelSentimentReader. The name may also be a directory of result part-files, read in file name order.
+     *
+     * @param fileOrDirectoryName the file or directory of files to search. See method comments for headers.
+     * @param groupings the groupings to build.
+     * @return the scores of every group of every grouping.
+     * @throws IOException exception.
+     */
+    public ScoreGroups getScoreGroupsInParallel(String fileOrDirectoryName, Grouping... groupings)
+        throws IOException {
+        return new ParallelSentimentReader().read(directory.resolve(fileOrDirectoryName), groupings);
+    }
 
-        return Arrays.asList(maleNameArray, femaleNameArray);
+    /**
+     * Converts a result file to the columnar format read by getScoreGroupsFromColumnarFile.
+     *
+     * @param fileName the csv file to convert. See method comments for headers.
+     * @param columnarFileName the file to write.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public void convertToColumnarFile(String fileName, String columnarFileName)
+        throws IOException, CsvValidationException {
+        ColumnarResultFile.write(directory.resolve(fileName), directory.resolve(columnarFileName));
     }
 
+    /**
+     * Same groups as getScoreGroups(String, Grouping...), loaded from a file written by convertToColumnarFile.
+     * Only the score column is touched and whole groups are copied in bulk from the mapped file. Within a group
+     * rows are ordered by race and gender cell rather than by the order of the original file.
+     *
+     * @param columnarFileName the columnar file to read.
+     * @param groupings the groupings to build; only gender and race columns are available.
+     * @return the scores of every group of every grouping.
+     * @throws IOException exception.
+     */
+    public ScoreGroups getScoreGroupsFromColumnarFile(String columnarFileName, Grouping... groupings)
+        throws IOException {
+        return ColumnarResultFile.open(directory.resolve(columnarFileName)).toScoreGroups(groupings);
+    }
 
-    private static double[] convertToPrimitiveDoubleArray(List<Double> lst) {
-        int size = lst.size();
+    /**
+     * Same groups as reading the result file of a corpus, but looks every record up in a ScoreCache by its text
+     * instead, so a run whose passages were all scored before needs no result file at all.
+     *
+     * @param corpus records to group.
+     * @param cache cache the records were scored into.
+     * @param model name of the model that scored the records.
+     * @param version version of the model.
+     * @param groupings the groupings to build.
+     * @return the scores of every group of every grouping, in corpus order.
+     * @throws IOException if a record is not in the cache.
+     */
+    public ScoreGroups getScoreGroupsFromCache(CorpusGenerator corpus, ScoreCache cache, String model,
+                                               String version, Grouping... groupings) throws IOException {
+        ScoreGroups groups = new ScoreGroups(Arrays.asList(groupings));
+        long missing = 0;
 
-        double[] doubleArray = new double[size];
+        Iterator<CorpusRecord> records = corpus.iterator();
+        while (records.hasNext()) {
+            CorpusRecord record = records.next();
+            SentimentResult result = cache.get(model, version, record.getText());
+            if (result == null) {
+                missing++;
+            } else {
+                groups.add(LocalScoring.toResultRow(record, result), result.getPositive());
+            }
+        }
 
-        for (int i = 0; i < size; i++) {
-            doubleArray[i] = lst.get(i);
+        if (missing > 0) {
+            throw new IOException(missing + " of " + corpus.size() + " records have not been scored by "
+                + model + " " + version);
         }
+        return groups;
+    }
+
+    /**
+     * Returns a List of double arrays. the first array represents the positive sentiment scores (confidence)
+     * for each "white sounding" name in the data set, male and female. The second array represents the positive
+     * sentiment scores (confidence) for each "black sounding" name in the data set, male and female.
+     *
+     * @param fileName the file to search. See method comments for headers.
+     * @return List of double arrays as described above.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public List<double[]> getBlackNameVsWhiteNameArrays(String fileName) throws IOException, CsvValidationException {
+        return getBlackNameVsWhiteNameArrays(getScoreGroups(fileName, Grouping.RACE));
+    }
+
+    /**
+     * Same split as getBlackNameVsWhiteNameArrays(String), taken from groups that were already parsed. Rows
+     * whose race is neither value are not counted as either; see ScoreGroups.getUnknownValues().
+     *
+     * @param groups parsed groups that include Grouping.RACE.
+     * @return List of double arrays as described above.
+     */
+    public List<double[]> getBlackNameVsWhiteNameArrays(ScoreGroups groups) {
+        return Arrays.asList(groups.get(Grouping.RACE, Race.BLACK.toString()),
+            groups.get(Grouping.RACE, Race.WHITE.toString()));
+    }
 
-        return doubleArray;
+    /**
+     * Returns a List of double arrays. the first array represents the positive sentiment scores (confidence)
+     * for each "female sounding" name in the data set, black and white. The second array represents the positive
+     * sentiment scores (confidence) for each "male sounding" name in the data set, black and white.
+     *
+     * @param fileName the file to search. See method comments for headers.
+     * @return List of double arrays as described above.
+     * @throws IOException exception.
+     * @throws CsvValidationException exception.
+     */
+    public List<double[]> getMaleNameVsFemaleNameArrays(String fileName) throws IOException, CsvValidationException {
+        return getMaleNameVsFemaleNameArrays(getScoreGroups(fileName, Grouping.GENDER));
     }
 
+    /**
+     * Same split as getMaleNameVsFemaleNameArrays(String), taken from groups that were already parsed. Rows
+     * whose gender is neither value are not counted as either; see ScoreGroups.getUnknownValues().
+     *
+     * @param groups parsed groups that include Grouping.GENDER.
+     * @return List of double arrays as described above.
+     */
+    public List<double[]> getMaleNameVsFemaleNameArrays(ScoreGroups groups) {
+        return Arrays.asList(groups.get(Grouping.GENDER, Gender.MALE.toString()),
+            groups.get(Grouping.GENDER, Gender.FEMALE.toString()));
+    }
 
 }
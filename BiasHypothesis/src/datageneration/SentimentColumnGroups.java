@@ -0,0 +1,126 @@
+package datageneration;
+
+import enums.ScoreColumn;
+import enums.Sentiment;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All four scores and the dominant sentiment label split by every requested grouping, filled in a single pass
+ * over a result file. The counterpart of ScoreGroups for analyses that look at more than the positive score.
+ * Rows are mapped to groups through a GroupIndex. Groups keep rows in file order.
+ */
+public class SentimentColumnGroups {
+
+    private final GroupIndex index;
+    private final List<List<SentimentColumns>> groups = new ArrayList<>();
+    private final int[] groupIds;
+
+    public SentimentColumnGroups(List<Grouping> groupings) {
+        this.index = new GroupIndex(groupings);
+        for (int g = 0; g < groupings.size(); g++) {
+            groups.add(new ArrayList<>());
+        }
+        this.groupIds = new int[groupings.size()];
+    }
+
+    /**
+     * Adds a row to the matching group of every grouping. Groupings for which the row has a value outside an
+     * attribute's vocabulary skip the row; the value is counted in getUnknownValues().
+     * @param row parsed csv row.
+     * @param label the row's dominant sentiment.
+     * @param scores the row's scores, indexed by ScoreColumn ordinal.
+     */
+    void add(String[] row, Sentiment label, double[] scores) {
+        index.resolve(row, groupIds);
+        for (int g = 0; g < groupIds.length; g++) {
+            if (groupIds[g] != GroupIndex.NO_GROUP) {
+                List<SentimentColumns> columns = groups.get(g);
+                if (groupIds[g] == columns.size()) {
+                    columns.add(new SentimentColumns());
+                }
+                columns.get(groupIds[g]).add(label, scores);
+            }
+        }
+    }
+
+    public Set<Grouping> getGroupings() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.getGroupings()));
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @return the group keys seen for that grouping, in order of first appearance.
+     */
+    public Set<String> getKeys(Grouping grouping) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.getKeys(indexOf(grouping))));
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @param key group key, e.g. "BLACK" or "BLACK_FEMALE".
+     * @return the columns of that group, empty if no row had that key.
+     */
+    public SentimentColumns get(Grouping grouping, String key) {
+        int g = indexOf(grouping);
+        int id = index.findGroupId(g, key);
+        return id == GroupIndex.NO_GROUP ? new SentimentColumns() : groups.get(g).get(id);
+    }
+
+    /**
+     * @param grouping a grouping requested when parsing.
+     * @param key group key to leave out.
+     * @return the columns of every group except the given one, group by group. Rows with unknown values are not
+     * part of any group.
+     */
+    public SentimentColumns getAllExcept(Grouping grouping, String key) {
+        int g = indexOf(grouping);
+        List<String> keys = index.getKeys(g);
+        SentimentColumns combined = new SentimentColumns();
+        for (int id = 0; id < keys.size(); id++) {
+            if (!keys.get(id).equals(key)) {
+                combined.addAll(groups.get(g).get(id));
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * @return per attribute name, every value outside the attribute's vocabulary and the number of rows that had
+     * it. Empty if every row could be grouped.
+     */
+    public Map<String, Map<String, Long>> getUnknownValues() {
+        return index.getUnknownValues();
+    }
+
+    /**
+     * @param column score dimension to keep.
+     * @return the same groups holding only one score dimension, for the analyses that take ScoreGroups.
+     */
+    public ScoreGroups toScoreGroups(ScoreColumn column) {
+        List<Grouping> groupings = index.getGroupings();
+        ScoreGroups scoreGroups = new ScoreGroups(groupings);
+        for (int g = 0; g < groupings.size(); g++) {
+            List<String> keys = index.getKeys(g);
+            for (int id = 0; id < keys.size(); id++) {
+                scoreGroups.addAll(groupings.get(g), keys.get(id), DoubleBuffer.wrap(groups.get(g).get(id).get(column)));
+            }
+        }
+        scoreGroups.addUnknownValues(index.getUnknownValues());
+        return scoreGroups;
+    }
+
+    private int indexOf(Grouping grouping) {
+        int g = index.indexOf(grouping);
+        if (g < 0) {
+            throw new IllegalArgumentException("Grouping was not requested when parsing: " + grouping);
+        }
+        return g;
+    }
+}
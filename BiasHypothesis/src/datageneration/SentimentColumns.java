@@ -0,0 +1,76 @@
+package datageneration;
+
+import enums.ScoreColumn;
+import enums.Sentiment;
+
+import java.util.Arrays;
+
+/**
+ * Every score column and the label counts of one group, stored as one primitive array per column so each
+ * score dimension can be handed to a test without copying the others.
+ */
+public class SentimentColumns {
+
+    private static final ScoreColumn[] SCORE_COLUMNS = ScoreColumn.values();
+
+    private final DoubleArrayBuilder[] scores = new DoubleArrayBuilder[SCORE_COLUMNS.length];
+    private final long[] labelCounts = new long[Sentiment.values().length];
+
+    public SentimentColumns() {
+        for (int column = 0; column < scores.length; column++) {
+            scores[column] = new DoubleArrayBuilder();
+        }
+    }
+
+    /**
+     * Adds one row.
+     * @param label dominant sentiment of the row.
+     * @param rowScores the row's scores, indexed by ScoreColumn ordinal.
+     */
+    void add(Sentiment label, double[] rowScores) {
+        labelCounts[label.ordinal()]++;
+        for (int column = 0; column < scores.length; column++) {
+            scores[column].add(rowScores[column]);
+        }
+    }
+
+    /**
+     * Appends the rows of another group, preserving their order.
+     * @param other group to copy from.
+     */
+    void addAll(SentimentColumns other) {
+        for (int i = 0; i < labelCounts.length; i++) {
+            labelCounts[i] += other.labelCounts[i];
+        }
+        for (int column = 0; column < scores.length; column++) {
+            scores[column].addAll(other.scores[column]);
+        }
+    }
+
+    public int size() {
+        return scores[0].size();
+    }
+
+    /**
+     * @param column score dimension.
+     * @return a copy of that dimension's scores, in row order.
+     */
+    public double[] get(ScoreColumn column) {
+        return scores[column.ordinal()].toArray();
+    }
+
+    /**
+     * @return the number of rows with each dominant sentiment, indexed by Sentiment ordinal.
+     */
+    public long[] getLabelCounts() {
+        return Arrays.copyOf(labelCounts, labelCounts.length);
+    }
+
+    /**
+     * @param label dominant sentiment.
+     * @return the number of rows with that label.
+     */
+    public long getLabelCount(Sentiment label) {
+        return labelCounts[label.ordinal()];
+    }
+}
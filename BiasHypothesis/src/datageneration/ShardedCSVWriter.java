@@ -0,0 +1,216 @@
+package datageneration;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes csv rows into a series of shard files, e.g. report-00000.csv, report-00001.csv, ... Comprehend batch
+ * jobs handle many moderately sized input documents better than one huge file.
+ *
+ * Rows are encoded into an in-memory shard buffer on the calling thread. When a shard reaches its row or byte
+ * limit it is handed to a pool of writer threads, which write (and optionally gzip) it through a large buffer
+ * while the caller fills the next shard. At most two shards per writer thread are held in memory; write()
+ * blocks when that many are waiting. Every shard starts with the header row, if one is given.
+ */
+public class ShardedCSVWriter implements Closeable {
+
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 20;
+    private static final long MAX_SHARD_BYTES = Integer.MAX_VALUE - 8;
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final Path directory;
+    private final String prefix;
+    private final byte[] header;
+    private final long maxRowsPerShard;
+    private final long maxBytesPerShard;
+    private final boolean gzip;
+    private final ExecutorService writers;
+    private final Semaphore pendingShards;
+    private final List<Future<Path>> shardWrites = new ArrayList<>();
+
+    private ShardBuffer current;
+    private boolean closed;
+
+    /**
+     * @param directory directory the shards are written to; created if missing.
+     * @param prefix file name prefix of every shard.
+     * @param header header row written at the top of every shard, without line break; null for none.
+     * @param maxRowsPerShard maximum data rows per shard.
+     * @param maxBytesPerShard maximum uncompressed bytes per shard, header included. A single row larger than this
+     *                         still gets a shard of its own.
+     * @param gzip true to gzip every shard (file names end in .csv.gz).
+     * @param writerThreads number of shards written in parallel.
+     * @throws IOException if the directory cannot be created.
+     */
+    public ShardedCSVWriter(Path directory, String prefix, String header, long maxRowsPerShard,
+                            long maxBytesPerShard, boolean gzip, int writerThreads) throws IOException {
+        if (maxRowsPerShard <= 0 || maxBytesPerShard <= 0 || writerThreads <= 0) {
+            throw new IllegalArgumentException("Shard limits and writer threads must be positive");
+        }
+        if (maxBytesPerShard > MAX_SHARD_BYTES) {
+            throw new IllegalArgumentException("Shards are buffered in memory and limited to " + MAX_SHARD_BYTES
+                + " bytes: " + maxBytesPerShard);
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.prefix = prefix;
+        this.header = header == null ? new byte[0] : (header + "\n").getBytes(StandardCharsets.UTF_8);
+        this.maxRowsPerShard = maxRowsPerShard;
+        this.maxBytesPerShard = maxBytesPerShard;
+        this.gzip = gzip;
+        this.writers = Executors.newFixedThreadPool(writerThreads);
+        this.pendingShards = new Semaphore(2 * writerThreads);
+    }
+
+    /**
+     * Adds a row to the current shard, starting a new shard first if the row does not fit.
+     * @param row csv row without line break.
+     * @throws IOException if an earlier shard failed to write.
+     */
+    public void write(String row) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        if (current != null && (current.rows == maxRowsPerShard
+            || current.size + bytes.length + NEW_LINE.length > maxBytesPerShard)) {
+            flushShard();
+        }
+        if (current == null) {
+            current = new ShardBuffer(header);
+        }
+        current.append(bytes);
+        current.append(NEW_LINE);
+        current.rows++;
+    }
+
+    /**
+     * Writes the last shard and waits for every shard to be on disk.
+     * @throws IOException if a shard failed to write.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (current != null) {
+                flushShard();
+            }
+            for (Future<Path> write : shardWrites) {
+                await(write);
+            }
+        } finally {
+            writers.shutdown();
+        }
+    }
+
+    /**
+     * @return the shards written so far, in row order. Complete once close() has returned.
+     * @throws IOException if a shard failed to write.
+     */
+    public List<Path> getShards() throws IOException {
+        List<Path> shards = new ArrayList<>();
+        for (Future<Path> write : shardWrites) {
+            shards.add(await(write));
+        }
+        return Collections.unmodifiableList(shards);
+    }
+
+    private void flushShard() throws IOException {
+        final ShardBuffer shard = current;
+        final Path file = directory.resolve(String.format("%s-%05d%s", prefix, shardWrites.size(),
+            gzip ? ".csv.gz" : ".csv"));
+        current = null;
+
+        checkFinishedWrites();
+        try {
+            pendingShards.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shard writer", e);
+        }
+        shardWrites.add(writers.submit(() -> {
+            try {
+                writeShard(file, shard);
+                return file;
+            } finally {
+                pendingShards.release();
+            }
+        }));
+    }
+
+    private void writeShard(Path file, ShardBuffer shard) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), OUTPUT_BUFFER_BYTES);
+        if (gzip) {
+            out = new GZIPOutputStream(out, OUTPUT_BUFFER_BYTES);
+        }
+        try (OutputStream stream = out) {
+            stream.write(shard.bytes, 0, shard.size);
+        }
+    }
+
+    /**
+     * Surfaces a failed shard write on the next write() rather than only at close().
+     */
+    private void checkFinishedWrites() throws IOException {
+        for (Future<Path> write : shardWrites) {
+            if (write.isDone()) {
+                await(write);
+            }
+        }
+    }
+
+    private static Path await(Future<Path> write) throws IOException {
+        try {
+            return write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Encoded content of one shard.
+     */
+    private static final class ShardBuffer {
+
+        private byte[] bytes;
+        private int size;
+        private long rows;
+
+        ShardBuffer(byte[] header) {
+            bytes = new byte[Math.max(header.length, 1 << 16)];
+            append(header);
+        }
+
+        void append(byte[] data) {
+            if (size + data.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + data.length, bytes.length << 1));
+            }
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package datageneration;
 
 import enums.Gender;
+import enums.PronounSet;
+import enums.Race;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -13,6 +15,8 @@ import java.util.List;
  */
 public class TextPassage {
 
+    public static final String NAME_PLACEHOLDER = "Arthur";
+
     private static String starterText = "The only person for whom the house was in any way " +
         "special was Arthur Dent and that was only because it happened to be the one he " +
         "lived in. He had lived in it for about three years ever since he had moved out of " +
@@ -42,10 +46,7 @@ public class TextPassage {
         "Darnell", "Terrell", "Malik", "Trevon", "Tyrone", "Willie", "Dominique", "Demetrius",
         "Reginald", "Jamal", "Maurice", "Jalen", "Darius", "Xavier", "Terrance", "Andre", "Darryl");
 
-    private static final List<String> whiteWomenText = textBuilder(starterText, whiteWomenNames, Gender.FEMALE);
-    private static final List<String> blackWomenText = textBuilder(starterText, blackWomenNames, Gender.FEMALE);
-    private static final List<String> whiteMenText = textBuilder(starterText, whiteMenNames, Gender.MALE);
-    private static final List<String> blackMenText = textBuilder(starterText, blackMenNames, Gender.MALE);
+    private static final PassageTemplate starterTemplate = PassageTemplate.compile(starterText, NAME_PLACEHOLDER);
 
     public static String getStarterText() {
         return starterText;
@@ -67,44 +68,74 @@ public class TextPassage {
         return blackMenNames;
     }
 
+    public static PassageTemplate getStarterTemplate() {
+        return starterTemplate;
+    }
+
+    /**
+     * @return the four name lists in the order they are written to the report: black men, white men,
+     * white women, black women.
+     */
+    public static List<NameList> getNameLists() {
+        return Arrays.asList(
+            new NameList(blackMenNames, Gender.MALE, Race.BLACK),
+            new NameList(whiteMenNames, Gender.MALE, Race.WHITE),
+            new NameList(whiteWomenNames, Gender.FEMALE, Race.WHITE),
+            new NameList(blackWomenNames, Gender.FEMALE, Race.BLACK));
+    }
+
+    /**
+     * @return a lazy generator of the starter text for every name.
+     */
+    public static CorpusGenerator corpus() {
+        return new CorpusGenerator(Arrays.asList(starterTemplate), getNameLists());
+    }
+
     public static List<String> getWhiteWomenText() {
-        return whiteWomenText;
+        return textBuilder(starterTemplate, whiteWomenNames, PronounSet.FEMALE);
     }
 
     public static List<String> getBlackWomenText() {
-        return blackWomenText;
+        return textBuilder(starterTemplate, blackWomenNames, PronounSet.FEMALE);
     }
 
     public static List<String> getWhiteMenText() {
-        return whiteMenText;
+        return textBuilder(starterTemplate, whiteMenNames, PronounSet.MALE);
     }
 
     public static List<String> getBlackMenText() {
-        return blackMenText;
+        return textBuilder(starterTemplate, blackMenNames, PronounSet.MALE);
+    }
+
+    /**
+     * Builds one passage per name by substituting "Arthur" in the given text with the name and using the
+     * pronouns of the given gender.
+     * @param text base passage using the name Arthur and male pronouns.
+     * @param names names to substitute.
+     * @param gender gender of the names.
+     * @return one passage per name, in the order of the names.
+     */
+    public static List<String> textBuilder(String text, List<String> names, Gender gender) {
+        return textBuilder(PassageTemplate.compile(text, NAME_PLACEHOLDER), names, PronounSet.forGender(gender));
     }
 
-    private static List<String> textBuilder(String text, List<String> names, Gender gender) {
-        List<String> returnedList = new ArrayList<>();
+    /**
+     * Builds one passage per name from a compiled template.
+     * @param template compiled base passage.
+     * @param names names to substitute.
+     * @param pronouns pronouns to substitute.
+     * @return one passage per name, in the order of the names.
+     */
+    public static List<String> textBuilder(PassageTemplate template, List<String> names, PronounSet pronouns) {
+        List<String> returnedList = new ArrayList<>(names.size());
+        StringBuilder buffer = new StringBuilder();
 
         for (String name : names) {
-            String newText = text.replaceAll("Arthur", name);
-            if (gender.equals(Gender.FEMALE)) {
-                newText = changePronounsToFemale(newText);
-            }
-            returnedList.add(newText);
+            buffer.setLength(0);
+            template.render(buffer, name, pronouns);
+            returnedList.add(buffer.toString());
         }
 
         return returnedList;
     }
-
-    private static String changePronounsToFemale(String originalString) {
-        return originalString.replaceAll(" he ", " she ")
-            .replaceAll("He ", "She ")
-            .replaceAll(" him ", " her ")
-            .replaceAll("Him ", "Her ")
-            .replaceAll(" his ", " her ")
-            .replaceAll("His ", "Her ")
-            .replaceAll("himself", "herself")
-            .replaceAll("Himself ", "Herself ");
-    }
 }
@@ -0,0 +1,114 @@
+package datageneration;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds the verb that agrees with a subject pronoun and gives its plural form, so passages rendered with singular
+ * they read "they were" and "they work" rather than "they was" and "they works".
+ *
+ * The agreeing word is the first word after the pronoun, skipping a few adverbs ("he always works"), or the
+ * contraction right after it ("he's"). Irregular forms (was, is, has, does and their negations) are mapped, and
+ * other words ending in a single s are treated as third person present verbs. Past tense and modal verbs need no
+ * change.
+ */
+final class VerbAgreement {
+
+    private static final Set<String> ADVERBS = new HashSet<>(Arrays.asList(
+        "always", "never", "also", "often", "still", "just", "really", "usually", "sometimes", "only", "then",
+        "certainly", "probably", "already", "even", "ever", "soon", "quickly", "finally", "rarely", "seldom"));
+
+    private VerbAgreement() {
+    }
+
+    /**
+     * @param text passage text.
+     * @param subjectEnd index just after a subject pronoun.
+     * @return start of the word that agrees with the pronoun, or -1 if no word follows.
+     */
+    static int agreeingWordStart(String text, int subjectEnd) {
+        int pos = subjectEnd;
+        if (pos + 1 < text.length() && text.charAt(pos) == '\'' && Character.isLetter(text.charAt(pos + 1))) {
+            return pos + 1;
+        }
+        while (true) {
+            int start = pos;
+            while (start < text.length() && text.charAt(start) == ' ') {
+                start++;
+            }
+            if (start == pos || start == text.length() || !Character.isLetter(text.charAt(start))) {
+                return -1;
+            }
+            int end = wordEnd(text, start);
+            if (!ADVERBS.contains(text.substring(start, end).toLowerCase())) {
+                return start;
+            }
+            pos = end;
+        }
+    }
+
+    /**
+     * @param text passage text.
+     * @param start start of a word.
+     * @return index just after the word.
+     */
+    static int wordEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && Character.isLetter(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @param text passage text.
+     * @param start start of the word returned by agreeingWordStart.
+     * @return the word's form after a plural subject, or null if it does not change.
+     */
+    static String plural(String text, int start) {
+        int end = wordEnd(text, start);
+        String word = text.substring(start, end);
+        String lower = word.toLowerCase();
+        boolean contraction = start > 0 && text.charAt(start - 1) == '\'';
+        if (contraction) {
+            if (!lower.equals("s")) {
+                return null;
+            }
+            // he's been, he's got: has; otherwise is
+            return text.startsWith(" been", end) || text.startsWith(" got", end) ? "ve" : "re";
+        }
+        switch (lower) {
+            case "was":
+                return "were";
+            case "is":
+                return "are";
+            case "has":
+                return "have";
+            case "does":
+                return "do";
+            case "wasn":
+                return "weren";
+            case "isn":
+                return "aren";
+            case "hasn":
+                return "haven";
+            case "doesn":
+                return "don";
+            default:
+                break;
+        }
+        if (lower.length() <= 2 || !lower.endsWith("s") || lower.endsWith("ss") || lower.endsWith("us")
+            || lower.endsWith("is")) {
+            return null;
+        }
+        if (lower.endsWith("ies") && lower.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (lower.endsWith("ches") || lower.endsWith("shes") || lower.endsWith("sses") || lower.endsWith("xes")
+            || lower.endsWith("zes") || lower.endsWith("oes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        return word.substring(0, word.length() - 1);
+    }
+}
@@ -0,0 +1,22 @@
+package enums;
+
+/**
+ * Multiple-comparison corrections applied to a family of p-values.
+ */
+public enum Correction {
+    NONE("NONE"),
+    HOLM("HOLM"),
+    BENJAMINI_HOCHBERG("BENJAMINI_HOCHBERG");
+
+    private String value;
+
+    private Correction(String value) {
+        this.value = value;
+    };
+
+    public String toString() {
+        return this.value;
+    }
+
+
+}
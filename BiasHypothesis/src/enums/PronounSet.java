@@ -0,0 +1,58 @@
+package enums;
+
+/**
+ * Third person pronouns substituted into generated passages. NONBINARY uses singular they, which is not
+ * expressed in the current name data. Like plural they it takes plural verbs ("they were", "they work").
+ */
+public enum PronounSet {
+    MALE("he", "him", "his", "himself", false),
+    FEMALE("she", "her", "her", "herself", false),
+    NONBINARY("they", "them", "their", "themselves", true);
+
+    private String subject;
+    private String object;
+    private String possessive;
+    private String reflexive;
+    private boolean plural;
+
+    private PronounSet(String subject, String object, String possessive, String reflexive, boolean plural) {
+        this.subject = subject;
+        this.object = object;
+        this.possessive = possessive;
+        this.reflexive = reflexive;
+        this.plural = plural;
+    };
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getObject() {
+        return object;
+    }
+
+    public String getPossessive() {
+        return possessive;
+    }
+
+    public String getReflexive() {
+        return reflexive;
+    }
+
+    /**
+     * @return true if verbs agree with the subject pronoun in the plural.
+     */
+    public boolean isPlural() {
+        return plural;
+    }
+
+    /**
+     * @param gender gender of a name.
+     * @return the pronouns used for names of that gender.
+     */
+    public static PronounSet forGender(Gender gender) {
+        return gender == Gender.FEMALE ? FEMALE : MALE;
+    }
+
+
+}
@@ -0,0 +1,23 @@
+package enums;
+
+/**
+ * The four confidence scores Comprehend returns for a document, in the order they appear in a result file.
+ */
+public enum ScoreColumn {
+    POSITIVE("POSITIVE"),
+    MIXED("MIXED"),
+    NEGATIVE("NEGATIVE"),
+    NEUTRAL("NEUTRAL");
+
+    private String value;
+
+    private ScoreColumn(String value) {
+        this.value = value;
+    };
+
+    public String toString() {
+        return this.value;
+    }
+
+
+}
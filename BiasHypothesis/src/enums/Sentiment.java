@@ -0,0 +1,23 @@
+package enums;
+
+/**
+ * Sentiment types returned by Comprehend.
+ */
+public enum Sentiment {
+    POSITIVE("POSITIVE"),
+    NEGATIVE("NEGATIVE"),
+    NEUTRAL("NEUTRAL"),
+    MIXED("MIXED");
+
+    private String value;
+
+    private Sentiment(String value) {
+        this.value = value;
+    };
+
+    public String toString() {
+        return this.value;
+    }
+
+
+}
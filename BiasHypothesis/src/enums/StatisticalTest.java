@@ -0,0 +1,24 @@
+package enums;
+
+/**
+ * Tests an experiment can run on each comparison of two groups.
+ */
+public enum StatisticalTest {
+    WELCH("WELCH"),
+    MANN_WHITNEY("MANN_WHITNEY"),
+    KOLMOGOROV_SMIRNOV("KOLMOGOROV_SMIRNOV"),
+    CHI_SQUARE("CHI_SQUARE"),
+    MATCHED("MATCHED");
+
+    private String value;
+
+    private StatisticalTest(String value) {
+        this.value = value;
+    };
+
+    public String toString() {
+        return this.value;
+    }
+
+
+}
@@ -0,0 +1,94 @@
+package experiment;
+
+import datageneration.Attribute;
+import datageneration.Grouping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two levels of an attribute whose scores are compared, e.g. race BLACK against race WHITE. Matched tests pair
+ * rows that share every other attribute of the experiment.
+ */
+public class Comparison {
+
+    private final Attribute attribute;
+    private final String level1;
+    private final String level2;
+    private final Attribute[] strata;
+
+    public Comparison(Attribute attribute, String level1, String level2, Attribute... strata) {
+        this.attribute = attribute;
+        this.level1 = level1;
+        this.level2 = level2;
+        this.strata = strata.clone();
+    }
+
+    /**
+     * @param comparison attribute name and two levels separated by colons, e.g. "race:BLACK:WHITE".
+     * @param attributes attributes of the experiment; every one but the compared attribute becomes a stratum.
+     * @return the comparison.
+     * @throws IllegalArgumentException if the attribute is unknown or a level is outside its vocabulary.
+     */
+    public static Comparison parse(String comparison, List<Attribute> attributes) {
+        String[] parts = comparison.trim().split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected attribute:level1:level2, got " + comparison);
+        }
+        Attribute compared = null;
+        List<Attribute> strata = new ArrayList<>();
+        for (Attribute attribute : attributes) {
+            if (attribute.getName().equalsIgnoreCase(parts[0])) {
+                compared = attribute;
+            } else {
+                strata.add(attribute);
+            }
+        }
+        if (compared == null) {
+            throw new IllegalArgumentException("Unknown attribute: " + parts[0]);
+        }
+        String level1 = parts[1].toUpperCase();
+        String level2 = parts[2].toUpperCase();
+        List<String> vocabulary = compared.getVocabulary();
+        if (vocabulary != null && (!vocabulary.contains(level1) || !vocabulary.contains(level2))) {
+            throw new IllegalArgumentException("Levels of " + compared.getName() + " must be in " + vocabulary
+                + ": " + comparison);
+        }
+        return new Comparison(compared, level1, level2, strata.toArray(new Attribute[0]));
+    }
+
+    public Attribute getAttribute() {
+        return attribute;
+    }
+
+    public String getLevel1() {
+        return level1;
+    }
+
+    public String getLevel2() {
+        return level2;
+    }
+
+    public Attribute[] getStrata() {
+        return strata.clone();
+    }
+
+    /**
+     * @return a grouping by the compared attribute alone.
+     */
+    public Grouping getGrouping() {
+        return new Grouping(attribute.getName(), attribute);
+    }
+
+    /**
+     * @return a name usable as a stage name and file name, e.g. "race-BLACK-WHITE".
+     */
+    public String getName() {
+        return attribute.getName() + "-" + level1 + "-" + level2;
+    }
+
+    @Override
+    public String toString() {
+        return attribute.getName() + " " + level1 + " vs " + level2;
+    }
+}
@@ -0,0 +1,362 @@
+package experiment;
+
+import datageneration.Attribute;
+import datageneration.GenerateSampleDataReport;
+import datageneration.Grouping;
+import datageneration.MatchedPairs;
+import datageneration.SentimentCSVParser;
+import datageneration.SentimentColumnGroups;
+import datageneration.SentimentColumns;
+import enums.ScoreColumn;
+import enums.StatisticalTest;
+import org.apache.commons.math3.stat.StatUtils;
+import runtest.MatchedTest;
+import runtest.RankTest;
+import runtest.RunTTest;
+import scoring.BatchScoringPipeline;
+import scoring.HttpSentimentProvider;
+import scoring.LexiconSentimentProvider;
+import scoring.LocalScoring;
+import scoring.TokenBucket;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the RunPlan of an ExperimentSpec and runs it:
+ *
+ *     generate                          writes the report given to Comprehend
+ *     score                             writes the results, unless scorer=none
+ *     parse                             reads the results once into memory, with every comparison's matched pairs
+ *     compare-race-BLACK-WHITE, ...     one stage per comparison, writing its test results
+ *     summary                           joins the comparisons into the output file
+ *
+ * generate and score are independent, as are the comparisons, so they run at the same time. Changing only alpha or
+ * the tests reruns the comparisons and the summary; changing a name list reruns everything.
+ */
+public class Experiment {
+
+    public static final String STATE_FILE = ".experiment-state";
+    public static final String GENERATE = "generate";
+    public static final String SCORE = "score";
+    public static final String PARSE = "parse";
+    public static final String SUMMARY = "summary";
+
+    private static final int HTTP_IN_FLIGHT = 8;
+
+    private final ExperimentSpec spec;
+
+    public Experiment(ExperimentSpec spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * @return the stages of the experiment; the state file is kept in the output directory.
+     */
+    public RunPlan plan() {
+        RunPlan plan = new RunPlan(spec.getDirectory().resolve(STATE_FILE));
+        plan.add(new GenerateStage());
+        boolean scored = !spec.getScorer().equals(ExperimentSpec.SCORER_NONE);
+        if (scored) {
+            plan.add(new ScoreStage());
+        }
+        plan.add(new ParseStage(scored));
+        List<String> comparisons = new ArrayList<>();
+        for (Comparison comparison : spec.getComparisons()) {
+            ComparisonStage stage = new ComparisonStage(comparison, scored);
+            plan.add(stage);
+            comparisons.add(stage.getName());
+        }
+        plan.add(new SummaryStage(comparisons));
+        return plan;
+    }
+
+    /**
+     * Runs every stage that is not up to date.
+     * @param force true to run every stage.
+     * @return what happened to every stage.
+     * @throws IOException if the output directory or state file cannot be written.
+     */
+    public RunReport run(boolean force) throws IOException {
+        Files.createDirectories(spec.getDirectory());
+        return plan().execute(spec.getThreads(), force);
+    }
+
+    /**
+     * @param comparison a comparison of the spec.
+     * @return the file its test results are written to.
+     */
+    public Path getComparisonFile(Comparison comparison) {
+        return spec.getDirectory().resolve(comparison.getName() + ".txt");
+    }
+
+    private String describeCorpus() {
+        return spec.describe("passages", "placeholder", "nameLists", "pronounSets")
+            + spec.describePrefix("nameList.");
+    }
+
+    private class GenerateStage extends Stage {
+
+        GenerateStage() {
+            super(GENERATE);
+        }
+
+        @Override
+        public List<Path> getInputs() {
+            return spec.getPassageFiles();
+        }
+
+        @Override
+        public List<Path> getOutputs() {
+            return Collections.singletonList(spec.getReportFile());
+        }
+
+        @Override
+        public String describe() {
+            return describeCorpus() + spec.describe("report");
+        }
+
+        @Override
+        public void run(StageContext context) throws IOException {
+            GenerateSampleDataReport.generateCSVReport(spec.corpus(), spec.getReportFile());
+        }
+    }
+
+    private class ScoreStage extends Stage {
+
+        ScoreStage() {
+            super(SCORE);
+        }
+
+        @Override
+        public List<Path> getInputs() {
+            return spec.getPassageFiles();
+        }
+
+        @Override
+        public List<Path> getOutputs() {
+            return Collections.singletonList(spec.getResultsFile());
+        }
+
+        @Override
+        public String describe() {
+            return describeCorpus() + spec.describe("results", "scorer", "scorer.endpoint")
+                + spec.describePrefix("scorer.bias.");
+        }
+
+        @Override
+        public void run(StageContext context) throws IOException {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(spec.getResultsFile()), StandardCharsets.UTF_8))) {
+                if (spec.getScorer().equals(ExperimentSpec.SCORER_HTTP)) {
+                    BatchScoringPipeline pipeline = new BatchScoringPipeline(BatchScoringPipeline.MAX_BATCH_SIZE,
+                        HTTP_IN_FLIGHT, new TokenBucket(200, 20), 5, 20);
+                    pipeline.score(spec.corpus().iterator(),
+                        new HttpSentimentProvider(spec.getScorerEndpoint(), Duration.ofSeconds(10)), out);
+                } else {
+                    LocalScoring.scoreCorpus(spec.corpus(), new LexiconSentimentProvider(spec.getBias()), out);
+                }
+            }
+        }
+    }
+
+    private class ParseStage extends Stage {
+
+        private final boolean scored;
+
+        ParseStage(boolean scored) {
+            super(PARSE, scored ? Collections.singletonList(SCORE) : Collections.<String>emptyList());
+            this.scored = scored;
+        }
+
+        @Override
+        public List<Path> getInputs() {
+            return scored ? Collections.<Path>emptyList() : Collections.singletonList(spec.getResultsFile());
+        }
+
+        @Override
+        public String describe() {
+            return spec.describe("results", "comparisons");
+        }
+
+        @Override
+        public void run(StageContext context) throws Exception {
+            List<Grouping> groupings = new ArrayList<>();
+            for (Comparison comparison : spec.getComparisons()) {
+                if (!groupings.contains(comparison.getGrouping())) {
+                    groupings.add(comparison.getGrouping());
+                }
+            }
+            // the matched pairs of every comparison are filled in the same pass as the groups
+            Map<String, MatchedPairs> pairs = new LinkedHashMap<>();
+            if (spec.getTests().contains(StatisticalTest.MATCHED)) {
+                for (Comparison comparison : spec.getComparisons()) {
+                    pairs.put(comparison.getName(), new MatchedPairs(comparison.getAttribute(),
+                        comparison.getLevel1(), comparison.getLevel2(), spec.getNameLists(), comparison.getStrata()));
+                }
+            }
+            SentimentColumnGroups groups = new SentimentCSVParser().getSentimentColumnGroups(spec.getResultsFile(),
+                new ArrayList<>(pairs.values()), groupings.toArray(new Grouping[0]));
+            context.put(PARSE, new ParsedResults(groups, pairs));
+        }
+    }
+
+    /**
+     * What the parse stage hands to the comparisons.
+     */
+    private static final class ParsedResults {
+
+        private final SentimentColumnGroups groups;
+        private final Map<String, MatchedPairs> pairs;
+
+        ParsedResults(SentimentColumnGroups groups, Map<String, MatchedPairs> pairs) {
+            this.groups = groups;
+            this.pairs = pairs;
+        }
+    }
+
+    private class ComparisonStage extends Stage {
+
+        private final Comparison comparison;
+        private final boolean scored;
+
+        ComparisonStage(Comparison comparison, boolean scored) {
+            super("compare-" + comparison.getName(), PARSE);
+            this.comparison = comparison;
+            this.scored = scored;
+        }
+
+        @Override
+        public List<Path> getInputs() {
+            return scored ? Collections.<Path>emptyList() : Collections.singletonList(spec.getResultsFile());
+        }
+
+        @Override
+        public List<Path> getOutputs() {
+            return Collections.singletonList(getComparisonFile(comparison));
+        }
+
+        @Override
+        public String describe() {
+            // matched pairs are slotted by name list, so the lists matter even when results come from elsewhere
+            return comparison.getName() + "\n" + spec.describe("columns", "tests", "alpha") + describeCorpus();
+        }
+
+        @Override
+        public void run(StageContext context) throws Exception {
+            ParsedResults parsed = context.get(PARSE, ParsedResults.class);
+            SentimentColumnGroups groups = parsed.groups;
+            SentimentColumns sample1 = groups.get(comparison.getGrouping(), comparison.getLevel1());
+            SentimentColumns sample2 = groups.get(comparison.getGrouping(), comparison.getLevel2());
+            double alpha = spec.getAlpha();
+            RunTTest runTTest = new RunTTest();
+            RankTest rankTest = new RankTest();
+
+            StringBuilder table = new StringBuilder(String.format("%s, %d vs %d rows, alpha %s%n", comparison,
+                sample1.size(), sample2.size(), alpha));
+            table.append(String.format("%-10s %-20s %8s %8s %10s %s%n", "score", "test", "mean1", "mean2", "p",
+                "reject"));
+            for (ScoreColumn column : spec.getColumns()) {
+                double[] scores1 = sample1.get(column);
+                double[] scores2 = sample2.get(column);
+                for (StatisticalTest test : spec.getTests()) {
+                    double p;
+                    switch (test) {
+                        case WELCH:
+                            p = runTTest.tTest(scores1, scores2);
+                            break;
+                        case MANN_WHITNEY:
+                            p = rankTest.mannWhitneyUTest(scores1, scores2);
+                            break;
+                        case KOLMOGOROV_SMIRNOV:
+                            p = rankTest.kolmogorovSmirnovTest(scores1, scores2);
+                            break;
+                        default:
+                            continue;
+                    }
+                    table.append(String.format("%-10s %-20s %8.4f %8.4f %10.4g %s%n", column, test,
+                        StatUtils.mean(scores1), StatUtils.mean(scores2), p, p < alpha));
+                }
+            }
+            if (spec.getTests().contains(StatisticalTest.CHI_SQUARE)) {
+                double p = runTTest.chiSquareTest(sample1, sample2);
+                table.append(String.format("%-10s %-20s %8s %8s %10.4g %s%n", "label", StatisticalTest.CHI_SQUARE,
+                    "", "", p, p < alpha));
+            }
+            if (spec.getTests().contains(StatisticalTest.MATCHED)) {
+                MatchedPairs pairs = parsed.pairs.get(comparison.getName());
+                List<String> strata = new ArrayList<>();
+                for (Attribute stratum : comparison.getStrata()) {
+                    strata.add(stratum.getName());
+                }
+                table.append(String.format("%s positive scores matched by passage, name slot and %s:%n", comparison,
+                    strata.isEmpty() ? "nothing else" : String.join(", ", strata)));
+                table.append(new MatchedTest(runTTest).compare(pairs, alpha));
+            }
+            Files.write(getComparisonFile(comparison), table.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private class SummaryStage extends Stage {
+
+        SummaryStage(List<String> comparisons) {
+            super(SUMMARY, comparisons);
+        }
+
+        @Override
+        public List<Path> getOutputs() {
+            return Collections.singletonList(spec.getOutputFile());
+        }
+
+        @Override
+        public String describe() {
+            return spec.describe("output");
+        }
+
+        @Override
+        public void run(StageContext context) throws IOException {
+            StringBuilder summary = new StringBuilder();
+            for (Comparison comparison : spec.getComparisons()) {
+                summary.append(new String(Files.readAllBytes(getComparisonFile(comparison)), StandardCharsets.UTF_8))
+                    .append(String.format("%n"));
+            }
+            Files.write(spec.getOutputFile(), summary.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Runs the experiment of a spec file and prints what each stage did and the test results. Without arguments
+     * the original study is run into the working directory. Arguments: [spec.properties] [--force]
+     */
+    public static void main(String[] args) throws IOException {
+        ExperimentSpec spec = ExperimentSpec.defaults();
+        boolean force = false;
+        for (String arg : args) {
+            if (arg.equals("--force")) {
+                force = true;
+            } else {
+                spec = ExperimentSpec.load(Paths.get(arg));
+            }
+        }
+
+        RunReport report = new Experiment(spec).run(force);
+        System.out.println(report);
+        if (!report.isSuccessful()) {
+            Map.Entry<String, Throwable> failure = report.getFailures().entrySet().iterator().next();
+            throw new IllegalStateException("Stage " + failure.getKey() + " failed", failure.getValue());
+        }
+        System.out.println(new String(Files.readAllBytes(spec.getOutputFile()), StandardCharsets.UTF_8));
+    }
+}
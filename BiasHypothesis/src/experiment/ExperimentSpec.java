@@ -0,0 +1,337 @@
+package experiment;
+
+import datageneration.Attribute;
+import datageneration.CorpusGenerator;
+import datageneration.NameList;
+import datageneration.PassageTemplate;
+import datageneration.TextPassage;
+import enums.Gender;
+import enums.PronounSet;
+import enums.Race;
+import enums.ScoreColumn;
+import enums.StatisticalTest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Everything one run of the study depends on, read from a properties file instead of being spread over constants
+ * and main methods. Every key is optional; the defaults reproduce the original study:
+ *
+ *     directory=.                              output directory, relative to the spec file
+ *     report=text_and_identifiers.csv          generated passages, as given to Comprehend
+ *     results=final.csv                        scored passages
+ *     output=results.txt                       test results of every comparison
+ *     passages=a.txt,b.txt                     base passage files; TextPassage's starter text if empty
+ *     placeholder=Arthur                       name in the base passages that is replaced
+ *     nameLists=blackMen,whiteWomen            name lists in output order; TextPassage's four lists if empty
+ *     nameList.blackMen.names=DeShawn,Tyrone   names of a list
+ *     nameList.blackMen.gender=MALE
+ *     nameList.blackMen.race=BLACK
+ *     pronounSets=MALE,FEMALE,NONBINARY        crossed with every name; the gender's pronouns if empty
+ *     scorer=lexicon                           lexicon, http, or none when results is produced elsewhere
+ *     scorer.bias.DeShawn=-0.1                 bias injected into the lexicon scorer
+ *     scorer.endpoint=http://localhost:8080/   sentiment service of the http scorer
+ *     columns=POSITIVE                         score columns tested
+ *     tests=WELCH,MANN_WHITNEY,KOLMOGOROV_SMIRNOV,CHI_SQUARE,MATCHED
+ *     comparisons=race:BLACK:WHITE,gender:MALE:FEMALE
+ *     alpha=0.10
+ *     threads=4                                stages run at the same time
+ *
+ * Paths are resolved against the output directory, except passage files, which are resolved against the
+ * directory of the spec file.
+ */
+public class ExperimentSpec {
+
+    public static final String SCORER_LEXICON = "lexicon";
+    public static final String SCORER_HTTP = "http";
+    public static final String SCORER_NONE = "none";
+
+    private static final List<Attribute> ATTRIBUTES = Arrays.asList(Attribute.RACE, Attribute.GENDER);
+
+    private final Properties properties;
+    private final Path directory;
+    private final List<Path> passageFiles = new ArrayList<>();
+    private final List<NameList> nameLists = new ArrayList<>();
+    private final List<PronounSet> pronounSets = new ArrayList<>();
+    private final Map<String, Double> bias = new TreeMap<>();
+    private final List<ScoreColumn> columns = new ArrayList<>();
+    private final List<StatisticalTest> tests = new ArrayList<>();
+    private final List<Comparison> comparisons = new ArrayList<>();
+    private final String scorer;
+    private final double alpha;
+    private final int threads;
+
+    /**
+     * @param properties spec keys described above.
+     * @param baseDirectory directory relative paths of the spec are resolved against.
+     * @throws IllegalArgumentException if a value cannot be parsed.
+     */
+    public ExperimentSpec(Properties properties, Path baseDirectory) {
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+        this.directory = baseDirectory.resolve(get("directory", ".")).normalize();
+
+        for (String file : list("passages")) {
+            passageFiles.add(baseDirectory.resolve(file).normalize());
+        }
+        List<String> listNames = list("nameLists");
+        if (listNames.isEmpty()) {
+            nameLists.addAll(TextPassage.getNameLists());
+        }
+        for (String listName : listNames) {
+            String prefix = "nameList." + listName + ".";
+            List<String> names = list(prefix + "names");
+            if (names.isEmpty()) {
+                throw new IllegalArgumentException("Name list has no names: " + listName);
+            }
+            nameLists.add(new NameList(names, valueOf(Gender.class, require(prefix + "gender")),
+                valueOf(Race.class, require(prefix + "race"))));
+        }
+        for (String pronounSet : list("pronounSets")) {
+            pronounSets.add(valueOf(PronounSet.class, pronounSet));
+        }
+
+        this.scorer = get("scorer", SCORER_LEXICON);
+        if (!Arrays.asList(SCORER_LEXICON, SCORER_HTTP, SCORER_NONE).contains(scorer)) {
+            throw new IllegalArgumentException("Unknown scorer: " + scorer);
+        }
+        if (scorer.equals(SCORER_HTTP)) {
+            require("scorer.endpoint");
+        }
+        for (String key : this.properties.stringPropertyNames()) {
+            if (key.startsWith("scorer.bias.")) {
+                bias.put(key.substring("scorer.bias.".length()), parseDouble(key));
+            }
+        }
+
+        for (String column : list("columns", ScoreColumn.POSITIVE.toString())) {
+            columns.add(valueOf(ScoreColumn.class, column));
+        }
+        for (String test : list("tests", "WELCH,MANN_WHITNEY,KOLMOGOROV_SMIRNOV,CHI_SQUARE,MATCHED")) {
+            tests.add(valueOf(StatisticalTest.class, test));
+        }
+        for (String comparison : list("comparisons", "race:BLACK:WHITE,gender:MALE:FEMALE")) {
+            comparisons.add(Comparison.parse(comparison, ATTRIBUTES));
+        }
+
+        this.alpha = parseDouble("alpha", .10);
+        if (alpha <= 0 || alpha > .5) {
+            throw new IllegalArgumentException("alpha must be in (0, 0.5]: " + alpha);
+        }
+        this.threads = parseInt("threads", Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+    }
+
+    /**
+     * @param file properties file.
+     * @return the spec, with paths relative to the directory of the file.
+     * @throws IOException exception.
+     */
+    public static ExperimentSpec load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        return new ExperimentSpec(properties, parent);
+    }
+
+    /**
+     * @return the original study: TextPassage's corpus scored into the working directory.
+     */
+    public static ExperimentSpec defaults() {
+        return new ExperimentSpec(new Properties(), Paths.get("").toAbsolutePath());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Path getReportFile() {
+        return directory.resolve(get("report", "text_and_identifiers.csv"));
+    }
+
+    public Path getResultsFile() {
+        return directory.resolve(get("results", "final.csv"));
+    }
+
+    public Path getOutputFile() {
+        return directory.resolve(get("output", "results.txt"));
+    }
+
+    /**
+     * @return base passage files, empty when TextPassage's starter text is used.
+     */
+    public List<Path> getPassageFiles() {
+        return Collections.unmodifiableList(passageFiles);
+    }
+
+    public String getPlaceholder() {
+        return get("placeholder", TextPassage.NAME_PLACEHOLDER);
+    }
+
+    public List<NameList> getNameLists() {
+        return Collections.unmodifiableList(nameLists);
+    }
+
+    public List<PronounSet> getPronounSets() {
+        return Collections.unmodifiableList(pronounSets);
+    }
+
+    /**
+     * @return the corpus described by the passages, name lists and pronoun sets.
+     * @throws IOException if a passage file cannot be read.
+     */
+    public CorpusGenerator corpus() throws IOException {
+        List<PassageTemplate> passages = new ArrayList<>();
+        for (Path file : passageFiles) {
+            passages.add(PassageTemplate.compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim(),
+                getPlaceholder()));
+        }
+        if (passages.isEmpty()) {
+            passages.add(PassageTemplate.compile(TextPassage.getStarterText(), getPlaceholder()));
+        }
+        return new CorpusGenerator(passages, nameLists, pronounSets);
+    }
+
+    public String getScorer() {
+        return scorer;
+    }
+
+    public URI getScorerEndpoint() {
+        return URI.create(require("scorer.endpoint"));
+    }
+
+    /**
+     * @return name to bias injected into the lexicon scorer, sorted by name.
+     */
+    public Map<String, Double> getBias() {
+        return Collections.unmodifiableMap(bias);
+    }
+
+    public List<ScoreColumn> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public List<StatisticalTest> getTests() {
+        return Collections.unmodifiableList(tests);
+    }
+
+    public List<Comparison> getComparisons() {
+        return Collections.unmodifiableList(comparisons);
+    }
+
+    /**
+     * @return race and gender, the attributes generated passages carry.
+     */
+    public List<Attribute> getAttributes() {
+        return ATTRIBUTES;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param keys spec keys.
+     * @return the keys and their values, one per line, for stage fingerprints. Missing keys are listed as empty.
+     */
+    String describe(String... keys) {
+        StringBuilder description = new StringBuilder();
+        for (String key : keys) {
+            description.append(key).append('=').append(get(key, "")).append('\n');
+        }
+        return description.toString();
+    }
+
+    /**
+     * @param prefix key prefix.
+     * @return every key starting with the prefix and its value, sorted by key.
+     */
+    String describePrefix(String prefix) {
+        StringBuilder description = new StringBuilder();
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            if (key.startsWith(prefix)) {
+                description.append(key).append('=').append(properties.getProperty(key)).append('\n');
+            }
+        }
+        return description.toString();
+    }
+
+    private String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    private String require(String key) {
+        String value = get(key, "");
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing spec key: " + key);
+        }
+        return value;
+    }
+
+    private List<String> list(String key) {
+        return list(key, "");
+    }
+
+    private List<String> list(String key, String defaultValue) {
+        List<String> values = new ArrayList<>();
+        for (String value : get(key, defaultValue).split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    private double parseDouble(String key) {
+        try {
+            return Double.parseDouble(require(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + key + "=" + get(key, ""), e);
+        }
+    }
+
+    private double parseDouble(String key, double defaultValue) {
+        return get(key, "").isEmpty() ? defaultValue : parseDouble(key);
+    }
+
+    private int parseInt(String key, int defaultValue) {
+        if (get(key, "").isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(require(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an integer: " + key + "=" + get(key, ""), e);
+        }
+    }
+
+    private static <E extends Enum<E>> E valueOf(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package experiment;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A directed acyclic graph of stages. Each stage starts as soon as every stage it depends on has finished, so
+ * independent stages such as report generation and scoring, or the tests of different comparisons, run at the
+ * same time on a fixed number of threads.
+ *
+ * Stage fingerprints of the last successful run are kept in a state file. Stages whose fingerprint has not
+ * changed and whose outputs exist are skipped; see Stage. Before anything runs, the entries of stages about to
+ * run are removed from the state file, so an interrupted run never leaves a half written output marked as up to
+ * date.
+ */
+public class RunPlan {
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private final Path stateFile;
+
+    /**
+     * @param stateFile file keeping the fingerprints of the last run, created if missing.
+     */
+    public RunPlan(Path stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * @param stage stage to add. Its dependencies may be added later.
+     * @throws IllegalArgumentException if a stage with the same name was already added.
+     */
+    public void add(Stage stage) {
+        if (stages.putIfAbsent(stage.getName(), stage) != null) {
+            throw new IllegalArgumentException("Duplicate stage: " + stage.getName());
+        }
+    }
+
+    /**
+     * @return every stage after the stages it depends on, otherwise in the order they were added.
+     * @throws IllegalArgumentException if a dependency is unknown or the dependencies form a cycle.
+     */
+    public List<Stage> order() {
+        Map<String, Integer> missing = new HashMap<>();
+        Map<String, List<String>> dependents = dependents();
+        Deque<String> ready = new ArrayDeque<>();
+        for (Stage stage : stages.values()) {
+            missing.put(stage.getName(), stage.getDependencies().size());
+            if (stage.getDependencies().isEmpty()) {
+                ready.add(stage.getName());
+            }
+        }
+
+        List<Stage> order = new ArrayList<>(stages.size());
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            order.add(stages.get(name));
+            for (String dependent : dependents.get(name)) {
+                if (missing.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() < stages.size()) {
+            List<String> cycle = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : missing.entrySet()) {
+                if (entry.getValue() > 0) {
+                    cycle.add(entry.getKey());
+                }
+            }
+            throw new IllegalArgumentException("Stages depend on each other: " + cycle);
+        }
+        return order;
+    }
+
+    /**
+     * @return name to fingerprint of every stage, computed from its description, its inputs and the fingerprints
+     * of its dependencies.
+     * @throws IOException if an input cannot be inspected.
+     */
+    public Map<String, String> fingerprints() throws IOException {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (Stage stage : order()) {
+            StringBuilder content = new StringBuilder(stage.getClass().getName()).append('\n')
+                .append(stage.describe()).append('\n');
+            for (String dependency : stage.getDependencies()) {
+                content.append(dependency).append('=').append(fingerprints.get(dependency)).append('\n');
+            }
+            for (Path input : stage.getInputs()) {
+                content.append(input.toAbsolutePath()).append('=');
+                content.append(Files.exists(input)
+                    ? Files.size(input) + "@" + Files.getLastModifiedTime(input).toMillis() : "missing");
+                content.append('\n');
+            }
+            fingerprints.put(stage.getName(), sha256(content.toString()));
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Runs every stage that is not up to date.
+     * @param threads number of stages that may run at the same time.
+     * @param force true to run every stage regardless of the state file.
+     * @return what happened to every stage.
+     * @throws IOException if the state file cannot be read or written.
+     */
+    public RunReport execute(int threads, boolean force) throws IOException {
+        List<Stage> order = order();
+        Map<String, String> fingerprints = fingerprints();
+        Properties lastRun = readState();
+
+        // walk dependents before dependencies, so an in-memory stage knows whether any consumer runs
+        Map<String, List<String>> dependents = dependents();
+        Map<String, Boolean> runs = new HashMap<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Stage stage = order.get(i);
+            boolean run;
+            if (stage.getOutputs().isEmpty()) {
+                List<String> consumers = dependents.get(stage.getName());
+                run = consumers.isEmpty();
+                for (String consumer : consumers) {
+                    run |= runs.get(consumer);
+                }
+            } else {
+                run = force || !isUpToDate(stage, fingerprints.get(stage.getName()), lastRun);
+            }
+            runs.put(stage.getName(), run);
+        }
+
+        Properties state = new Properties();
+        for (Stage stage : order) {
+            if (!runs.get(stage.getName()) && !stage.getOutputs().isEmpty()) {
+                state.setProperty(stage.getName(), fingerprints.get(stage.getName()));
+            }
+        }
+        writeState(state);
+
+        StageContext context = new StageContext();
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        Map<String, Long> elapsed = new HashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new StageThreadFactory());
+        try {
+            for (Stage stage : order) {
+                CompletableFuture<?>[] dependencies = new CompletableFuture<?>[stage.getDependencies().size()];
+                for (int d = 0; d < dependencies.length; d++) {
+                    dependencies[d] = futures.get(stage.getDependencies().get(d));
+                }
+                boolean run = runs.get(stage.getName());
+                futures.put(stage.getName(), CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    if (run) {
+                        long start = System.nanoTime();
+                        try {
+                            stage.run(context);
+                        } catch (Exception e) {
+                            throw new CompletionException(e);
+                        } finally {
+                            synchronized (elapsed) {
+                                elapsed.put(stage.getName(), System.nanoTime() - start);
+                            }
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, failure) -> null).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        RunReport report = new RunReport();
+        for (Stage stage : order) {
+            String name = stage.getName();
+            CompletableFuture<Void> future = futures.get(name);
+            long nanos = elapsed.getOrDefault(name, 0L);
+            if (!future.isCompletedExceptionally()) {
+                report.add(name, runs.get(name) ? RunReport.Status.RAN : RunReport.Status.UP_TO_DATE, nanos, null);
+                if (!stage.getOutputs().isEmpty()) {
+                    state.setProperty(name, fingerprints.get(name));
+                }
+            } else if (elapsed.containsKey(name)) {
+                report.add(name, RunReport.Status.FAILED, nanos, cause(future));
+            } else {
+                report.add(name, RunReport.Status.NOT_RUN, 0, null);
+            }
+        }
+        writeState(state);
+        return report;
+    }
+
+    private boolean isUpToDate(Stage stage, String fingerprint, Properties lastRun) {
+        if (!fingerprint.equals(lastRun.getProperty(stage.getName()))) {
+            return false;
+        }
+        for (Path output : stage.getOutputs()) {
+            if (!Files.exists(output)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, List<String>> dependents() {
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (String name : stages.keySet()) {
+            dependents.put(name, new ArrayList<>());
+        }
+        for (Stage stage : stages.values()) {
+            for (String dependency : stage.getDependencies()) {
+                if (!stages.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Stage " + stage.getName() + " depends on unknown stage "
+                        + dependency);
+                }
+                dependents.get(dependency).add(stage.getName());
+            }
+        }
+        return dependents;
+    }
+
+    private Properties readState() throws IOException {
+        Properties state = new Properties();
+        if (Files.exists(stateFile)) {
+            try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+                state.load(reader);
+            }
+        }
+        return state;
+    }
+
+    private void writeState(Properties state) throws IOException {
+        Path temporary = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            state.store(writer, "Stage fingerprints of the last run");
+        }
+        Files.move(temporary, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Throwable cause(CompletableFuture<Void> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class StageThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "stage-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
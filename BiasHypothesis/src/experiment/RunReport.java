@@ -0,0 +1,66 @@
+package experiment;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What one execution of a RunPlan did with each stage, in plan order.
+ */
+public class RunReport {
+
+    public enum Status {
+        RAN, UP_TO_DATE, FAILED, NOT_RUN
+    }
+
+    private final Map<String, Status> statuses = new LinkedHashMap<>();
+    private final Map<String, Long> elapsedNanos = new LinkedHashMap<>();
+    private final Map<String, Throwable> failures = new LinkedHashMap<>();
+
+    void add(String stage, Status status, long nanos, Throwable failure) {
+        statuses.put(stage, status);
+        elapsedNanos.put(stage, nanos);
+        if (failure != null) {
+            failures.put(stage, failure);
+        }
+    }
+
+    /**
+     * @param stage stage name.
+     * @return what happened to the stage. NOT_RUN means a stage it depends on failed.
+     */
+    public Status getStatus(String stage) {
+        return statuses.get(stage);
+    }
+
+    public Map<String, Status> getStatuses() {
+        return Collections.unmodifiableMap(statuses);
+    }
+
+    /**
+     * @return the exception of every failed stage.
+     */
+    public Map<String, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%-30s %-10s %10s%n", "stage", "status", "ms"));
+        for (Map.Entry<String, Status> entry : statuses.entrySet()) {
+            String stage = entry.getKey();
+            table.append(String.format("%-30s %-10s %10d", stage, entry.getValue(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos.get(stage))));
+            if (failures.containsKey(stage)) {
+                table.append("  ").append(failures.get(stage));
+            }
+            table.append(String.format("%n"));
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package experiment;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One step of a RunPlan, such as generating the report or running the tests of one comparison.
+ *
+ * A stage that writes files is skipped when its fingerprint matches the last successful run and its outputs still
+ * exist. The fingerprint covers describe(), the fingerprints of its dependencies and the size and modification time
+ * of its inputs. A stage without outputs hands its result to its dependents through the StageContext, so it runs
+ * whenever one of them does.
+ */
+public abstract class Stage {
+
+    private final String name;
+    private final List<String> dependencies;
+
+    /**
+     * @param name unique name within a plan.
+     * @param dependencies names of the stages that have to finish first.
+     */
+    protected Stage(String name, String... dependencies) {
+        this(name, Arrays.asList(dependencies));
+    }
+
+    /**
+     * @param name unique name within a plan.
+     * @param dependencies names of the stages that have to finish first.
+     */
+    protected Stage(String name, List<String> dependencies) {
+        this.name = name;
+        this.dependencies = Collections.unmodifiableList(new ArrayList<>(dependencies));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * @return files the stage reads that no stage of the plan writes, e.g. base passages.
+     */
+    public List<Path> getInputs() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return files the stage writes, empty if its result stays in memory.
+     */
+    public List<Path> getOutputs() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return the configuration the outputs depend on besides dependencies and inputs.
+     */
+    public abstract String describe();
+
+    /**
+     * @param context results of the in-memory stages this one depends on.
+     * @throws Exception if the stage fails; its dependents are then not run.
+     */
+    public abstract void run(StageContext context) throws Exception;
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
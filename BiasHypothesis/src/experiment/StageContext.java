@@ -0,0 +1,34 @@
+package experiment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values passed from in-memory stages to their dependents during one execution of a RunPlan.
+ */
+public class StageContext {
+
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * @param stage name of the stage producing the value.
+     * @param value its result.
+     */
+    public void put(String stage, Object value) {
+        values.put(stage, value);
+    }
+
+    /**
+     * @param stage name of a stage this one depends on.
+     * @param type type of its result.
+     * @return the result.
+     * @throws IllegalStateException if the stage produced no result.
+     */
+    public <T> T get(String stage, Class<T> type) {
+        Object value = values.get(stage);
+        if (value == null) {
+            throw new IllegalStateException("Stage has no result in memory: " + stage);
+        }
+        return type.cast(value);
+    }
+}
@@ -0,0 +1,102 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process wide registry of stage metrics. Every stage is registered with the platform MBean server when it is
+ * created, so a running job can be inspected with jconsole or any JMX client, and the whole registry can be
+ * dumped as JSON on demand or at a fixed interval.
+ */
+public final class Metrics {
+
+    private static final Map<String, StageMetrics> STAGES = new LinkedHashMap<>();
+
+    public static final StageMetrics GENERATE = stage("generate");
+    public static final StageMetrics SCORE = stage("score");
+    public static final StageMetrics PARSE = stage("parse");
+    public static final StageMetrics TTEST = stage("ttest");
+
+    private Metrics() {
+    }
+
+    /**
+     * @param name stage name.
+     * @return the stage's metrics, created and registered with JMX on first use. Look stages up once and keep
+     * them; this is not meant for the per row path.
+     */
+    public static synchronized StageMetrics stage(String name) {
+        return STAGES.computeIfAbsent(name, Metrics::register);
+    }
+
+    /**
+     * @return every stage, in order of creation.
+     */
+    public static synchronized Collection<StageMetrics> stages() {
+        return Collections.unmodifiableCollection(new ArrayList<>(STAGES.values()));
+    }
+
+    /**
+     * @return every stage's counters as one JSON object keyed by stage name.
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (StageMetrics stage : stages()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT, "\"%s\":{\"calls\":%d,\"rows\":%d,\"rowsPerSecond\":%.1f,"
+                    + "\"bytesRead\":%d,\"bytesWritten\":%d,\"errors\":%d,\"allocatedBytesPerRow\":%.1f,"
+                    + "\"latencyMicros\":{\"mean\":%.2f,\"p50\":%.2f,\"p99\":%.2f,\"max\":%.2f}}",
+                stage.getName(), stage.getCalls(), stage.getRows(), stage.getRowsPerSecond(), stage.getBytesRead(),
+                stage.getBytesWritten(), stage.getErrors(), stage.getAllocatedBytesPerRow(),
+                stage.getMeanLatencyMicros(), stage.getP50LatencyMicros(), stage.getP99LatencyMicros(),
+                stage.getMaxLatencyMicros()));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Prints toJson() at a fixed interval on a daemon thread.
+     * @param interval time between dumps.
+     * @param out destination of the dumps.
+     * @return the scheduler; shut it down to stop logging.
+     */
+    public static ScheduledExecutorService startLogging(Duration interval, PrintStream out) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(() -> out.println(toJson()), millis, millis, TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    private static StageMetrics register(String name) {
+        StageMetrics stage = new StageMetrics(name);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("comprehendbias:type=Stage,name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(stage, objectName);
+            }
+        } catch (JMException e) {
+            // metrics stay available through toJson() when JMX registration is not possible
+        }
+        return stage;
+    }
+}
@@ -0,0 +1,167 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram for one stage of the generate, score, parse and test pipeline. Counters
+ * are LongAdders, so threads recording at the same time do not contend. Stages are timed per call, not per
+ * row: a call opens a Span, counts its rows locally and closes the span once, so the per row loops pay nothing.
+ *
+ * Rows per second is measured against the time spent inside the stage. Allocation is the heap allocated by the
+ * thread that opened the span, so work a call hands to other threads is not included.
+ */
+public class StageMetrics implements StageMetricsMXBean {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final String name;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder allocationRows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    StageMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return a span timing one call of this stage; close it with one of the finish methods.
+     */
+    public Span start() {
+        return new Span(this);
+    }
+
+    /**
+     * Records one call that was timed by the caller, without allocation tracking. Meant for calls too short
+     * for a Span.
+     * @param nanos duration of the call.
+     * @param callRows rows the call handled.
+     */
+    public void record(long nanos, long callRows) {
+        latency.record(nanos);
+        busyNanos.add(nanos);
+        rows.add(callRows);
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void addBytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    public void addError() {
+        errors.increment();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        long nanos = busyNanos.sum();
+        return nanos == 0 ? 0 : rows.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getAllocatedBytesPerRow() {
+        long counted = allocationRows.sum();
+        return counted == 0 ? 0 : (double) allocatedBytes.sum() / counted;
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latency.getMean() / 1e3;
+    }
+
+    @Override
+    public double getP50LatencyMicros() {
+        return latency.getPercentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getP99LatencyMicros() {
+        return latency.getPercentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return latency.getMax() / 1e3;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * One timed call of a stage.
+     */
+    public static final class Span {
+
+        private final StageMetrics stage;
+        private final long startNanos;
+        private final long startAllocated;
+
+        private Span(StageMetrics stage) {
+            this.stage = stage;
+            this.startAllocated = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * @param callRows rows the call handled.
+         */
+        public void finish(long callRows) {
+            long nanos = System.nanoTime() - startNanos;
+            long endAllocated = allocatedBytes();
+            stage.record(nanos, callRows);
+            if (startAllocated >= 0 && endAllocated >= 0) {
+                stage.allocatedBytes.add(endAllocated - startAllocated);
+                stage.allocationRows.add(callRows);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package metrics;
+
+/**
+ * JMX view of one pipeline stage, registered as comprehendbias:type=Stage,name=[stage].
+ */
+public interface StageMetricsMXBean {
+
+    long getRows();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getErrors();
+
+    long getCalls();
+
+    double getRowsPerSecond();
+
+    double getAllocatedBytesPerRow();
+
+    double getMeanLatencyMicros();
+
+    double getP50LatencyMicros();
+
+    double getP99LatencyMicros();
+
+    double getMaxLatencyMicros();
+}
@@ -0,0 +1,149 @@
+package runtest;
+
+import datageneration.Grouping;
+import datageneration.ScoreGroups;
+import enums.Correction;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a Welch t-test for every pair of groups of one or more groupings (e.g. all race x gender cells) and
+ * corrects the whole family of p-values for multiple comparisons. Statistics of every group are computed once;
+ * the pairwise tests only combine them, and run in parallel.
+ */
+public class BatchTTest {
+
+    private final RunTTest runTTest;
+
+    public BatchTTest() {
+        this(new RunTTest());
+    }
+
+    public BatchTTest(RunTTest runTTest) {
+        this.runTTest = runTTest;
+    }
+
+    /**
+     * Tests every pair of groups within each grouping. Groups with fewer than 2 scores, or whose scores are all
+     * equal, cannot be tested and are left out; two such groups have no degrees of freedom between them.
+     *
+     * @param groups parsed groups.
+     * @param correction correction applied across all tests of all groupings.
+     * @param alpha significance level the corrected p-values are compared with.
+     * @param groupings groupings to test; each must have been requested when parsing.
+     * @return one row per tested pair.
+     * @throws OutOfRangeException if alpha is not in the range (0, 0.5]
+     */
+    public PairwiseResults run(ScoreGroups groups, Correction correction, double alpha, Grouping... groupings)
+        throws OutOfRangeException {
+        List<String> groupingNames = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<WelchAccumulator> statistics = new ArrayList<>();
+        List<int[]> pairs = new ArrayList<>();
+
+        for (Grouping grouping : groupings) {
+            int first = keys.size();
+            for (String key : groups.getKeys(grouping)) {
+                WelchAccumulator accumulator = new WelchAccumulator();
+                accumulator.addAll(groups.get(grouping, key));
+                if (accumulator.getN() >= 2 && accumulator.getVariance() > 0) {
+                    groupingNames.add(grouping.getName());
+                    keys.add(key);
+                    statistics.add(accumulator);
+                }
+            }
+            for (int i = first; i < keys.size(); i++) {
+                for (int j = i + 1; j < keys.size(); j++) {
+                    pairs.add(new int[] {i, j});
+                }
+            }
+        }
+
+        return run(groupingNames, keys, statistics, pairs, correction, alpha);
+    }
+
+    private PairwiseResults run(List<String> groupingNames, List<String> keys, List<WelchAccumulator> statistics,
+                                List<int[]> pairs, Correction correction, double alpha) {
+        if (alpha <= 0 || alpha > 0.5) {
+            throw new OutOfRangeException(LocalizedFormats.SIGNIFICANCE_LEVEL, alpha, 0.0, 0.5);
+        }
+
+        int size = pairs.size();
+        PairwiseResults results = new PairwiseResults(size, correction, alpha);
+        IntStream.range(0, size).parallel().forEach(row -> {
+            int[] pair = pairs.get(row);
+            WelchAccumulator s1 = statistics.get(pair[0]);
+            WelchAccumulator s2 = statistics.get(pair[1]);
+            results.groupings[row] = groupingNames.get(pair[0]);
+            results.groups1[row] = keys.get(pair[0]);
+            results.groups2[row] = keys.get(pair[1]);
+            results.means1[row] = s1.getMean();
+            results.means2[row] = s2.getMean();
+            results.counts1[row] = s1.getN();
+            results.counts2[row] = s2.getN();
+            results.tStatistics[row] = runTTest.t(s1.getMean(), s2.getMean(),
+                s1.getVariance(), s2.getVariance(), s1.getN(), s2.getN());
+            results.degreesOfFreedom[row] = runTTest.df(s1.getVariance(), s2.getVariance(), s1.getN(), s2.getN());
+            results.pValues[row] = runTTest.tTest(s1, s2);
+        });
+
+        double[] adjusted = adjust(results.pValues, correction);
+        for (int row = 0; row < size; row++) {
+            results.adjustedPValues[row] = adjusted[row];
+            results.rejected[row] = adjusted[row] < alpha;
+        }
+        return results;
+    }
+
+    /**
+     * Adjusts a family of p-values for multiple comparisons.
+     *
+     * HOLM controls the family-wise error rate: the i-th smallest p-value (0 based) is multiplied by (m - i)
+     * and the result is made non-decreasing. BENJAMINI_HOCHBERG controls the false discovery rate: the i-th
+     * smallest p-value is multiplied by m / (i + 1) and the result is made non-increasing from the largest
+     * p-value down. Adjusted values are capped at 1. NaN p-values stay NaN and are not counted in m.
+     *
+     * @param pValues raw p-values.
+     * @param correction correction to apply.
+     * @return adjusted p-values in the order of the input.
+     */
+    public static double[] adjust(double[] pValues, Correction correction) {
+        double[] adjusted = pValues.clone();
+        if (correction == Correction.NONE) {
+            return adjusted;
+        }
+
+        // NaN would sort last and poison every running minimum, so it is left out of the family
+        int m = 0;
+        Integer[] order = new Integer[pValues.length];
+        for (int i = 0; i < pValues.length; i++) {
+            if (!Double.isNaN(pValues[i])) {
+                order[m++] = i;
+            }
+        }
+        Arrays.sort(order, 0, m, Comparator.comparingDouble(i -> pValues[i]));
+
+        if (correction == Correction.HOLM) {
+            double running = 0;
+            for (int rank = 0; rank < m; rank++) {
+                int i = order[rank];
+                running = Math.max(running, Math.min(1.0, (m - rank) * pValues[i]));
+                adjusted[i] = running;
+            }
+        } else {
+            double running = 1.0;
+            for (int rank = m - 1; rank >= 0; rank--) {
+                int i = order[rank];
+                running = Math.min(running, Math.min(1.0, pValues[i] * m / (rank + 1)));
+                adjusted[i] = running;
+            }
+        }
+        return adjusted;
+    }
+}
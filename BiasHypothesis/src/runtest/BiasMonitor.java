@@ -0,0 +1,273 @@
+package runtest;
+
+import datageneration.GroupIndex;
+import datageneration.Grouping;
+import datageneration.SentimentCSVParser;
+import enums.ScoreColumn;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Long running counterpart of GetResults: keeps the Welch tests of every pair of groups up to date as result
+ * rows arrive, without keeping or rescanning the rows.
+ *
+ * Every row is folded into WelchAccumulators in three scopes: since the monitor started, the time bucket the
+ * row belongs to, and the current segment (e.g. the model version being scored). Each of these is one Welford
+ * update, so a row costs constant work however many rows came before. The sliding window is the last
+ * windowBuckets buckets, kept in a ring and merged only when a report is built. Segments let a report show
+ * whether the race or gender gap changed when the model version changed.
+ *
+ * Thread safe: rows may be added from one thread while another builds reports.
+ */
+public class BiasMonitor {
+
+    private final RunTTest runTTest;
+    private final GroupIndex index;
+    private final int scoreColumn;
+    private final long bucketMillis;
+    private final Bucket[] window;
+    private final GroupStats total;
+    private final Map<String, GroupStats> segments = new LinkedHashMap<>();
+    private final int[] groupIds;
+
+    private GroupStats segment;
+    private long rows;
+    private long latestBucket = Long.MIN_VALUE;
+
+    /**
+     * @param runTTest test used for every comparison.
+     * @param column score dimension to monitor.
+     * @param bucket width of one time bucket.
+     * @param windowBuckets number of most recent buckets in the sliding window.
+     * @param groupings groupings whose groups are compared pairwise.
+     */
+    public BiasMonitor(RunTTest runTTest, ScoreColumn column, Duration bucket, int windowBuckets,
+                       Grouping... groupings) {
+        if (bucket.toMillis() <= 0 || windowBuckets <= 0) {
+            throw new IllegalArgumentException("Bucket width and window size must be positive");
+        }
+        this.runTTest = runTTest;
+        this.index = new GroupIndex(Arrays.asList(groupings));
+        this.scoreColumn = SentimentCSVParser.POSITIVE_COLUMN + column.ordinal();
+        this.bucketMillis = bucket.toMillis();
+        this.window = new Bucket[windowBuckets];
+        this.total = new GroupStats(groupings.length);
+        this.groupIds = new int[groupings.length];
+        startSegment("initial");
+    }
+
+    /**
+     * Counts the following rows in a new segment, e.g. after a model version change. Earlier segments are kept
+     * for comparison.
+     * @param name segment name, e.g. the model version.
+     */
+    public synchronized void startSegment(String name) {
+        segment = segments.computeIfAbsent(name, k -> new GroupStats(groupIds.length));
+    }
+
+    /**
+     * Adds a result row arriving now.
+     * @param row result row with the headers described in SentimentCSVParser.
+     */
+    public void add(String[] row) {
+        add(row, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a result row.
+     * @param row result row with the headers described in SentimentCSVParser.
+     * @param timestampMillis time the row was scored, which decides its time bucket.
+     * @throws IllegalArgumentException if the row has no score column or its score is not a number. Nothing is
+     * counted then.
+     */
+    public synchronized void add(String[] row, long timestampMillis) throws IllegalArgumentException {
+        if (row.length <= scoreColumn) {
+            throw new IllegalArgumentException("Row has " + row.length + " columns, score is column " + scoreColumn);
+        }
+        double score = Double.parseDouble(row[scoreColumn]);
+        index.resolve(row, groupIds);
+        rows++;
+
+        Bucket bucket = bucket(Math.floorDiv(timestampMillis, bucketMillis));
+        for (int g = 0; g < groupIds.length; g++) {
+            if (groupIds[g] == GroupIndex.NO_GROUP) {
+                continue;
+            }
+            total.get(g, groupIds[g]).add(score);
+            segment.get(g, groupIds[g]).add(score);
+            if (bucket != null) {
+                bucket.stats.get(g, groupIds[g]).add(score);
+            }
+        }
+    }
+
+    /**
+     * Adds rows taken from a queue until an empty row, the end marker, is taken. Rows are timestamped when they
+     * are taken. Rows add rejects are counted as parse errors and skipped.
+     * @param queue queue filled by a producer such as a scoring job.
+     * @throws InterruptedException if interrupted while waiting for a row.
+     */
+    public void consume(BlockingQueue<String[]> queue) throws InterruptedException {
+        String[] row;
+        while ((row = queue.take()).length > 0) {
+            try {
+                add(row);
+            } catch (IllegalArgumentException e) {
+                Metrics.PARSE.addError();
+            }
+        }
+    }
+
+    /**
+     * @return every pairwise comparison in every scope: all rows, the sliding window and each segment.
+     */
+    public synchronized String report() {
+        StringBuilder report = new StringBuilder(String.format("%d rows", rows));
+        if (!index.getUnknownValues().isEmpty()) {
+            report.append(", unknown values left out: ").append(index.getUnknownValues());
+        }
+        report.append(String.format("%n%-22s %-12s %-16s %-16s %8s %8s %8s %8s %10s%n",
+            "scope", "grouping", "group1", "group2", "n1", "n2", "mean1", "mean2", "p"));
+        appendComparisons(report, "all", total);
+        appendComparisons(report, "last " + window.length + " x " + Duration.ofMillis(bucketMillis), windowStats());
+        for (Map.Entry<String, GroupStats> entry : segments.entrySet()) {
+            appendComparisons(report, "segment " + entry.getKey(), entry.getValue());
+        }
+        return report.toString();
+    }
+
+    private void appendComparisons(StringBuilder report, String scope, GroupStats stats) {
+        List<Grouping> groupings = index.getGroupings();
+        for (int g = 0; g < groupings.size(); g++) {
+            List<String> keys = index.getKeys(g);
+            for (int i = 0; i < keys.size(); i++) {
+                for (int j = i + 1; j < keys.size(); j++) {
+                    WelchAccumulator a = stats.get(g, i);
+                    WelchAccumulator b = stats.get(g, j);
+                    report.append(String.format("%-22s %-12s %-16s %-16s %8d %8d %8.4f %8.4f %10.4g%n", scope,
+                        groupings.get(g), keys.get(i), keys.get(j), a.getN(), b.getN(), a.getMean(), b.getMean(),
+                        pValue(a, b)));
+                }
+            }
+        }
+    }
+
+    /**
+     * NaN until both groups hold two values with some spread.
+     */
+    private double pValue(WelchAccumulator a, WelchAccumulator b) {
+        if (a.getN() < 2 || b.getN() < 2 || a.getVariance() + b.getVariance() == 0) {
+            return Double.NaN;
+        }
+        return runTTest.tTest(a, b);
+    }
+
+    /**
+     * @return the bucket a row with this bucket number belongs in, recycling the ring slot of a bucket that left
+     * the window, or null if the bucket is already older than the window.
+     */
+    private Bucket bucket(long number) {
+        if (number > latestBucket) {
+            latestBucket = number;
+        } else if (number <= latestBucket - window.length) {
+            return null;
+        }
+        int slot = (int) Math.floorMod(number, (long) window.length);
+        if (window[slot] == null || window[slot].number != number) {
+            window[slot] = new Bucket(number, groupIds.length);
+        }
+        return window[slot];
+    }
+
+    private GroupStats windowStats() {
+        GroupStats merged = new GroupStats(groupIds.length);
+        for (Bucket bucket : window) {
+            if (bucket != null && bucket.number > latestBucket - window.length) {
+                merged.merge(bucket.stats);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Tails a result file, or a directory of result part-files, and prints a report at a fixed interval.
+     * Arguments: file or directory [bucket seconds, default 60] [window buckets, default 60]
+     * [report seconds, default 10]. Stage metrics are logged as JSON once a minute.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: BiasMonitor <file or directory> [bucket seconds] "
+                + "[window buckets] [report seconds]");
+        }
+        Path input = Paths.get(args[0]);
+        long bucketSeconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        int windowBuckets = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        long reportMillis = (args.length > 3 ? Long.parseLong(args[3]) : 10) * 1000;
+
+        BiasMonitor monitor = new BiasMonitor(new RunTTest(), ScoreColumn.POSITIVE,
+            Duration.ofSeconds(bucketSeconds), windowBuckets, Grouping.RACE, Grouping.GENDER, Grouping.RACE_AND_GENDER);
+        ResultTailer tailer = new ResultTailer(input);
+        Metrics.startLogging(Duration.ofMinutes(1), System.out);
+        long nextReport = System.currentTimeMillis();
+        while (true) {
+            tailer.poll(monitor::add);
+            if (System.currentTimeMillis() >= nextReport) {
+                System.out.println(monitor.report());
+                nextReport += reportMillis;
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    /**
+     * One accumulator per group of every grouping, indexed by GroupIndex group id.
+     */
+    private static final class GroupStats {
+
+        private final List<List<WelchAccumulator>> groups = new ArrayList<>();
+
+        GroupStats(int groupings) {
+            for (int g = 0; g < groupings; g++) {
+                groups.add(new ArrayList<>());
+            }
+        }
+
+        WelchAccumulator get(int g, int id) {
+            List<WelchAccumulator> accumulators = groups.get(g);
+            while (accumulators.size() <= id) {
+                accumulators.add(new WelchAccumulator());
+            }
+            return accumulators.get(id);
+        }
+
+        void merge(GroupStats other) {
+            for (int g = 0; g < groups.size(); g++) {
+                List<WelchAccumulator> accumulators = other.groups.get(g);
+                for (int id = 0; id < accumulators.size(); id++) {
+                    get(g, id).merge(accumulators.get(id));
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+
+        private final long number;
+        private final GroupStats stats;
+
+        Bucket(long number, int groupings) {
+            this.number = number;
+            this.stats = new GroupStats(groupings);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package runtest;
+
+/**
+ * Standardized difference in mean scores of two groups: Cohen's d, its small sample correction Hedges' g, and a
+ * confidence interval for each. Unlike a p-value, the effect size does not shrink with the number of scored
+ * passages, so it tells whether a difference is large enough to matter and how many passages are needed to see it.
+ */
+public class EffectSize {
+
+    private final double cohensD;
+    private final double hedgesG;
+    private final double[] cohensDInterval;
+    private final double[] hedgesGInterval;
+    private final double confidence;
+    private final long n1;
+    private final long n2;
+
+    EffectSize(double cohensD, double hedgesG, double[] cohensDInterval, double[] hedgesGInterval,
+               double confidence, long n1, long n2) {
+        this.cohensD = cohensD;
+        this.hedgesG = hedgesG;
+        this.cohensDInterval = cohensDInterval;
+        this.hedgesGInterval = hedgesGInterval;
+        this.confidence = confidence;
+        this.n1 = n1;
+        this.n2 = n2;
+    }
+
+    /**
+     * @return (mean1 - mean2) / pooled standard deviation.
+     */
+    public double getCohensD() {
+        return cohensD;
+    }
+
+    /**
+     * @return Cohen's d times the exact small sample correction factor J(n1 + n2 - 2).
+     */
+    public double getHedgesG() {
+        return hedgesG;
+    }
+
+    /**
+     * @return lower and upper bound of the confidence interval of d.
+     */
+    public double[] getCohensDInterval() {
+        return cohensDInterval.clone();
+    }
+
+    /**
+     * @return lower and upper bound of the confidence interval of g.
+     */
+    public double[] getHedgesGInterval() {
+        return hedgesGInterval.clone();
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public long getN1() {
+        return n1;
+    }
+
+    public long getN2() {
+        return n2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n1 %d, n2 %d, d %.4f [%.4f, %.4f], g %.4f [%.4f, %.4f] (%s%% CI)", n1, n2,
+            cohensD, cohensDInterval[0], cohensDInterval[1], hedgesG, hedgesGInterval[0], hedgesGInterval[1],
+            confidence * 100);
+    }
+}
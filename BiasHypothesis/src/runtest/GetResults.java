@@ -1,33 +1,89 @@
 package runtest;
 
 import com.opencsv.exceptions.CsvValidationException;
+import datageneration.Attribute;
+import datageneration.Grouping;
+import datageneration.MatchedPairs;
+import datageneration.ScoreGroups;
 import datageneration.SentimentCSVParser;
+import datageneration.SentimentColumnGroups;
+import datageneration.TextPassage;
+import enums.Correction;
+import enums.Gender;
+import enums.Race;
+import enums.ScoreColumn;
+import metrics.Metrics;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 
 public class GetResults {
 
     private static final double ALPHA = .10;
 
+    /**
+     * Prints every test on the results of TextPassage's corpus. experiment.Experiment runs the tests of a spec file.
+     * Arguments: [results file, default final.csv in the working directory] [alpha, default 0.10]
+     */
     public static void main(String[] args) throws IOException, CsvValidationException {
 
+        Path results = Paths.get(args.length > 0 ? args[0] : "final.csv");
+        double alpha = args.length > 1 ? Double.parseDouble(args[1]) : ALPHA;
         SentimentCSVParser parser = new SentimentCSVParser();
         RunTTest runTTest = new RunTTest();
 
-        List<double[]> compareBlackAndWhiteNames = parser.getBlackNameVsWhiteNameArrays("final.csv");
-        List<double[]> compareMaleAndFemaleNames = parser.getMaleNameVsFemaleNameArrays("final.csv");
+        // the matched pairs are filled in the same pass over the results as the groups
+        MatchedPairs racePairs = new MatchedPairs(Attribute.RACE, Race.BLACK.toString(), Race.WHITE.toString(),
+            TextPassage.getNameLists(), Attribute.GENDER);
+        MatchedPairs genderPairs = new MatchedPairs(Attribute.GENDER, Gender.MALE.toString(),
+            Gender.FEMALE.toString(), TextPassage.getNameLists(), Attribute.RACE);
+        SentimentColumnGroups columns = parser.getSentimentColumnGroups(results, Arrays.asList(racePairs, genderPairs),
+            Grouping.RACE, Grouping.GENDER, Grouping.RACE_AND_GENDER);
+        ScoreGroups groups = columns.toScoreGroups(ScoreColumn.POSITIVE);
+        if (!columns.getUnknownValues().isEmpty()) {
+            System.out.println("Rows left out because of unknown attribute values: " + columns.getUnknownValues());
+        }
+        List<double[]> compareBlackAndWhiteNames = parser.getBlackNameVsWhiteNameArrays(groups);
+        List<double[]> compareMaleAndFemaleNames = parser.getMaleNameVsFemaleNameArrays(groups);
 
         boolean blackAndWhiteObservedPValue =
-            runTTest.tTest(compareBlackAndWhiteNames.get(0), compareBlackAndWhiteNames.get(1), ALPHA);
+            runTTest.tTest(compareBlackAndWhiteNames.get(0), compareBlackAndWhiteNames.get(1), alpha);
 
         boolean maleAndFemaleObservedPvalue =
-            runTTest.tTest(compareMaleAndFemaleNames.get(0), compareMaleAndFemaleNames.get(1), ALPHA);
+            runTTest.tTest(compareMaleAndFemaleNames.get(0), compareMaleAndFemaleNames.get(1), alpha);
 
         System.out.println(String.format("At an alpha level of %s, can we reject the hypothesis that black names and " +
-            "white names have the same mean positive sentiment score: ", ALPHA) + blackAndWhiteObservedPValue);
+            "white names have the same mean positive sentiment score: ", alpha) + blackAndWhiteObservedPValue);
         System.out.println("\n");
         System.out.println(String.format("At an alpha level of %s, can we reject the hypothesis that male names and " +
-            "female names have the same mean positive sentiment score: ", ALPHA) + maleAndFemaleObservedPvalue);
+            "female names have the same mean positive sentiment score: ", alpha) + maleAndFemaleObservedPvalue);
+        System.out.println("\n");
+        RankTest rankTest = new RankTest();
+        System.out.println(String.format("Black vs white names, Mann-Whitney U p-value %.4g, Kolmogorov-Smirnov "
+                + "p-value %.4g",
+            rankTest.mannWhitneyUTest(compareBlackAndWhiteNames.get(0), compareBlackAndWhiteNames.get(1)),
+            rankTest.kolmogorovSmirnovTest(compareBlackAndWhiteNames.get(0), compareBlackAndWhiteNames.get(1))));
+        System.out.println(String.format("Male vs female names, Mann-Whitney U p-value %.4g, Kolmogorov-Smirnov "
+                + "p-value %.4g",
+            rankTest.mannWhitneyUTest(compareMaleAndFemaleNames.get(0), compareMaleAndFemaleNames.get(1)),
+            rankTest.kolmogorovSmirnovTest(compareMaleAndFemaleNames.get(0), compareMaleAndFemaleNames.get(1))));
+        System.out.println("Pairwise comparison of race and gender groups, Holm corrected:");
+        System.out.println(new BatchTTest(runTTest).run(groups, Correction.HOLM, alpha, Grouping.RACE_AND_GENDER));
+        System.out.println("Black vs white names, every score and the sentiment label:");
+        System.out.println(runTTest.compare(columns.get(Grouping.RACE, Race.BLACK.toString()),
+            columns.get(Grouping.RACE, Race.WHITE.toString()), alpha));
+        System.out.println("Male vs female names, every score and the sentiment label:");
+        System.out.println(runTTest.compare(columns.get(Grouping.GENDER, Gender.MALE.toString()),
+            columns.get(Grouping.GENDER, Gender.FEMALE.toString()), alpha));
+        MatchedTest matchedTest = new MatchedTest(runTTest);
+        System.out.println("Black vs white names matched by passage, name slot and gender:");
+        System.out.println(matchedTest.compare(racePairs, alpha));
+        System.out.println("Male vs female names matched by passage, name slot and race:");
+        System.out.println(matchedTest.compare(genderPairs, alpha));
+        System.out.println("Stage metrics:");
+        System.out.println(Metrics.toJson());
     }
 }
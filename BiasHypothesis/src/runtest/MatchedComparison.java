@@ -0,0 +1,89 @@
+package runtest;
+
+/**
+ * Results of MatchedTest.compare: the paired, Wilcoxon signed-rank and blocked tests of one pair of levels, next
+ * to the independent samples t-test on the same rows.
+ */
+public class MatchedComparison {
+
+    private final int pairs;
+    private final int blocks;
+    private final double mean1;
+    private final double mean2;
+    private final double independentPValue;
+    private final double pairedPValue;
+    private final double wilcoxonPValue;
+    private final double blockedPValue;
+    private final double alpha;
+
+    MatchedComparison(int pairs, int blocks, double mean1, double mean2, double independentPValue,
+                      double pairedPValue, double wilcoxonPValue, double blockedPValue, double alpha) {
+        this.pairs = pairs;
+        this.blocks = blocks;
+        this.mean1 = mean1;
+        this.mean2 = mean2;
+        this.independentPValue = independentPValue;
+        this.pairedPValue = pairedPValue;
+        this.wilcoxonPValue = wilcoxonPValue;
+        this.blockedPValue = blockedPValue;
+        this.alpha = alpha;
+    }
+
+    public int getPairs() {
+        return pairs;
+    }
+
+    public int getBlocks() {
+        return blocks;
+    }
+
+    public double getMean1() {
+        return mean1;
+    }
+
+    public double getMean2() {
+        return mean2;
+    }
+
+    /**
+     * @return p-value of the Welch t-test treating the paired rows as independent samples.
+     */
+    public double getIndependentPValue() {
+        return independentPValue;
+    }
+
+    public double getPairedPValue() {
+        return pairedPValue;
+    }
+
+    public double getWilcoxonPValue() {
+        return wilcoxonPValue;
+    }
+
+    /**
+     * @return p-value of the blocked test, NaN if fewer than 2 blocks hold a complete pair.
+     */
+    public double getBlockedPValue() {
+        return blockedPValue;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%d pairs in %d blocks, mean1 %.4f, mean2 %.4f%n",
+            pairs, blocks, mean1, mean2));
+        table.append(String.format("%-12s %10s %s%n", "test", "p", "reject@" + alpha));
+        appendRow(table, "independent", independentPValue);
+        appendRow(table, "paired", pairedPValue);
+        appendRow(table, "wilcoxon", wilcoxonPValue);
+        appendRow(table, "blocked", blockedPValue);
+        return table.toString();
+    }
+
+    private void appendRow(StringBuilder table, String test, double pValue) {
+        table.append(String.format("%-12s %10.4g %s%n", test, pValue, Double.isNaN(pValue) ? "-" : pValue < alpha));
+    }
+}
@@ -0,0 +1,132 @@
+package runtest;
+
+import datageneration.MatchedPairs;
+import org.apache.commons.math3.exception.ConvergenceException;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.inference.WilcoxonSignedRankTest;
+
+/**
+ * Tests on scores matched by passage, which use the design of TextPassage: every variant of a base passage
+ * differs only in the name and pronouns, so differences within a pair are free of passage effects and far fewer
+ * scored rows give the same power as the independent samples test in RunTTest.
+ *
+ * The blocked test averages the differences of each block (base passage and strata) first and tests the block
+ * means, the simplest form of a mixed model with a random passage effect. It stays valid when pairs of the same
+ * passage are correlated, but needs at least two blocks.
+ */
+public class MatchedTest {
+
+    // largest number of pairs for which the Wilcoxon p-value is computed exactly
+    private static final int EXACT_WILCOXON_PAIRS = 30;
+
+    private final RunTTest runTTest;
+    private final WilcoxonSignedRankTest wilcoxon = new WilcoxonSignedRankTest();
+
+    public MatchedTest(RunTTest runTTest) {
+        this.runTTest = runTTest;
+    }
+
+    /**
+     * @param pairs matched scores.
+     * @return p-value of the paired t-test of a zero mean difference.
+     * @throws NullArgumentException if pairs is <code>null
+     * @throws NumberIsTooSmallException if there are fewer than 2 complete pairs
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     */
+    public double pairedTTest(final MatchedPairs pairs)
+        throws NullArgumentException, NumberIsTooSmallException, MaxCountExceededException {
+        verifyData(pairs);
+        return runTTest.pairedTTest(pairs.getScores1(), pairs.getScores2());
+    }
+
+    /**
+     * @param pairs matched scores.
+     * @return p-value of the Wilcoxon signed-rank test of a zero median difference; exact up to 30 pairs, normal
+     * approximation above.
+     * @throws NullArgumentException if pairs is <code>null
+     * @throws NumberIsTooSmallException if there are fewer than 2 complete pairs
+     * @throws ConvergenceException if the p-value can not be computed due to a convergence error
+     * @throws MaxCountExceededException if the maximum number of iterations is exceeded
+     */
+    public double wilcoxonSignedRankTest(final MatchedPairs pairs)
+        throws NullArgumentException, NumberIsTooSmallException, ConvergenceException, MaxCountExceededException {
+        verifyData(pairs);
+        return wilcoxon.wilcoxonSignedRankTest(pairs.getScores1(), pairs.getScores2(),
+            pairs.size() <= EXACT_WILCOXON_PAIRS);
+    }
+
+    /**
+     * @param pairs matched scores.
+     * @return p-value of the t-test of a zero mean of the per block mean differences.
+     * @throws NullArgumentException if pairs is <code>null
+     * @throws NumberIsTooSmallException if fewer than 2 blocks hold a complete pair
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     */
+    public double blockedTTest(final MatchedPairs pairs)
+        throws NullArgumentException, NumberIsTooSmallException, MaxCountExceededException {
+        verifyData(pairs);
+        final double[] blockMeans = blockMeans(pairs);
+        if (blockMeans.length < 2) {
+            throw new NumberIsTooSmallException(LocalizedFormats.INSUFFICIENT_DATA_FOR_T_STATISTIC,
+                blockMeans.length, 2, true);
+        }
+        return runTTest.tTest(StatUtils.mean(blockMeans), 0, StatUtils.variance(blockMeans), blockMeans.length);
+    }
+
+    /**
+     * Runs every matched test, and the independent samples t-test on the same rows for reference.
+     * @param pairs matched scores.
+     * @param alpha significance level the results are reported against.
+     * @return the results; the blocked p-value is NaN when fewer than 2 blocks hold a complete pair.
+     * @throws NullArgumentException if pairs is <code>null
+     * @throws NumberIsTooSmallException if there are fewer than 2 complete pairs
+     * @throws MaxCountExceededException if an error occurs computing a p-value
+     */
+    public MatchedComparison compare(final MatchedPairs pairs, final double alpha)
+        throws NullArgumentException, NumberIsTooSmallException, MaxCountExceededException {
+        verifyData(pairs);
+        final double[] scores1 = pairs.getScores1();
+        final double[] scores2 = pairs.getScores2();
+        final int blocks = pairs.getBlockCount();
+        return new MatchedComparison(scores1.length, blocks, StatUtils.mean(scores1), StatUtils.mean(scores2),
+            runTTest.tTest(scores1, scores2), pairedTTest(pairs), wilcoxonSignedRankTest(pairs),
+            blocks < 2 ? Double.NaN : blockedTTest(pairs), alpha);
+    }
+
+    private static double[] blockMeans(final MatchedPairs pairs) {
+        final double[] differences = pairs.getDifferences();
+        final int[] blocks = pairs.getBlocks();
+        final double[] sums = new double[pairs.getBlockCount()];
+        final int[] counts = new int[sums.length];
+        for (int i = 0; i < differences.length; i++) {
+            sums[blocks[i]] += differences[i];
+            counts[blocks[i]]++;
+        }
+        for (int block = 0; block < sums.length; block++) {
+            sums[block] /= counts[block];
+        }
+        return sums;
+    }
+
+    /**
+     * Helper method to verify that input is not null and holds at least 2 complete pairs.
+     * @param pairs input pairs.
+     * @throws NullPointerException
+     * @throws NumberIsTooSmallException
+     */
+    private void verifyData(final MatchedPairs pairs)
+        throws NullPointerException, NumberIsTooSmallException {
+
+        if (pairs == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+
+        if (pairs.size() < 2) {
+            throw new NumberIsTooSmallException(LocalizedFormats.INSUFFICIENT_DATA_FOR_T_STATISTIC, pairs.size(), 2, true);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package runtest;
+
+import enums.Correction;
+
+/**
+ * Result table of a BatchTTest run, stored column by column. Row i describes the test of group1 vs group2.
+ */
+public class PairwiseResults {
+
+    final String[] groupings;
+    final String[] groups1;
+    final String[] groups2;
+    final double[] means1;
+    final double[] means2;
+    final long[] counts1;
+    final long[] counts2;
+    final double[] tStatistics;
+    final double[] degreesOfFreedom;
+    final double[] pValues;
+    final double[] adjustedPValues;
+    final boolean[] rejected;
+
+    private final Correction correction;
+    private final double alpha;
+
+    PairwiseResults(int size, Correction correction, double alpha) {
+        this.groupings = new String[size];
+        this.groups1 = new String[size];
+        this.groups2 = new String[size];
+        this.means1 = new double[size];
+        this.means2 = new double[size];
+        this.counts1 = new long[size];
+        this.counts2 = new long[size];
+        this.tStatistics = new double[size];
+        this.degreesOfFreedom = new double[size];
+        this.pValues = new double[size];
+        this.adjustedPValues = new double[size];
+        this.rejected = new boolean[size];
+        this.correction = correction;
+        this.alpha = alpha;
+    }
+
+    public int size() {
+        return pValues.length;
+    }
+
+    public Correction getCorrection() {
+        return correction;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public String getGrouping(int row) {
+        return groupings[row];
+    }
+
+    public String getGroup1(int row) {
+        return groups1[row];
+    }
+
+    public String getGroup2(int row) {
+        return groups2[row];
+    }
+
+    public double getMean1(int row) {
+        return means1[row];
+    }
+
+    public double getMean2(int row) {
+        return means2[row];
+    }
+
+    public long getCount1(int row) {
+        return counts1[row];
+    }
+
+    public long getCount2(int row) {
+        return counts2[row];
+    }
+
+    public double getT(int row) {
+        return tStatistics[row];
+    }
+
+    public double getDegreesOfFreedom(int row) {
+        return degreesOfFreedom[row];
+    }
+
+    public double getPValue(int row) {
+        return pValues[row];
+    }
+
+    public double getAdjustedPValue(int row) {
+        return adjustedPValues[row];
+    }
+
+    /**
+     * @param row row index.
+     * @return true if the null hypothesis of equal means is rejected after correction.
+     */
+    public boolean isRejected(int row) {
+        return rejected[row];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%-12s %-16s %-16s %8s %8s %8s %8s %9s %9s %10s %10s %s%n",
+            "grouping", "group1", "group2", "n1", "n2", "mean1", "mean2", "t", "df", "p",
+            "p_" + correction, "reject@" + alpha));
+        for (int row = 0; row < size(); row++) {
+            table.append(String.format("%-12s %-16s %-16s %8d %8d %8.4f %8.4f %9.4f %9.2f %10.4g %10.4g %s%n",
+                groupings[row], groups1[row], groups2[row], counts1[row], counts2[row], means1[row], means2[row],
+                tStatistics[row], degreesOfFreedom[row], pValues[row], adjustedPValues[row], rejected[row]));
+        }
+        return table.toString();
+    }
+}
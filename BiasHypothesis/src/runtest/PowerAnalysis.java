@@ -0,0 +1,398 @@
+package runtest;
+
+import com.opencsv.exceptions.CsvValidationException;
+import datageneration.Grouping;
+import datageneration.NameList;
+import datageneration.ScoreGroups;
+import datageneration.SentimentCSVParser;
+import datageneration.TextPassage;
+import enums.Gender;
+import enums.Race;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.special.Gamma;
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.util.FastMath;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Sizes a corpus before it is scored. Computes effect sizes with confidence intervals from existing results, and
+ * simulates the power of the Welch t-test in RunTTest over grids of effect size, sample size and significance
+ * level, so the generator can be asked for just enough passages to detect the smallest effect of interest.
+ *
+ * Simulated groups are drawn either from a standard normal distribution or, given reference scores, with
+ * replacement from those scores, so the skew and bounds of real confidence scores are kept; the second group is
+ * shifted by effectSize standard deviations of the reference. Rows are assumed independent.
+ *
+ * Simulations are cut into fixed blocks of BLOCK_SIZE per grid cell. Every block gets its own random generator,
+ * split from the seed in block order before any work starts, and blocks run in parallel on the common fork-join
+ * pool, so the grid depends only on the seed. Each simulated pair of samples is tested at every alpha of the grid.
+ */
+public class PowerAnalysis {
+
+    private static final int BLOCK_SIZE = 256;
+
+    // largest sample size minimumSampleSize searches before giving up
+    private static final int MAX_SAMPLE_SIZE = 1 << 20;
+
+    private static final double ALPHA = .10;
+    private static final double TARGET_POWER = .80;
+    private static final int SIMULATIONS = 4000;
+    private static final long SEED = 42;
+
+    private final RunTTest runTTest;
+    private final double[] reference;
+    private final double referenceStandardDeviation;
+
+    /**
+     * Simulates normally distributed scores.
+     * @param runTTest test whose power is simulated.
+     */
+    public PowerAnalysis(RunTTest runTTest) {
+        this.runTTest = runTTest;
+        this.reference = null;
+        this.referenceStandardDeviation = 1;
+    }
+
+    /**
+     * Simulates scores resampled from reference scores, e.g. the positive scores of an earlier run.
+     * @param runTTest test whose power is simulated.
+     * @param referenceScores scores to resample; at least 2 and not all equal.
+     * @throws NullArgumentException if the scores are <code>null
+     * @throws NumberIsTooSmallException if fewer than 2 scores are given
+     * @throws NotStrictlyPositiveException if the scores have no variance
+     */
+    public PowerAnalysis(RunTTest runTTest, double[] referenceScores)
+        throws NullArgumentException, NumberIsTooSmallException, NotStrictlyPositiveException {
+        verifyData(referenceScores);
+        double standardDeviation = FastMath.sqrt(StatUtils.variance(referenceScores));
+        if (!(standardDeviation > 0)) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.STANDARD_DEVIATION, standardDeviation);
+        }
+        this.runTTest = runTTest;
+        this.reference = referenceScores.clone();
+        this.referenceStandardDeviation = standardDeviation;
+    }
+
+    /**
+     * Cohen's d and Hedges' g of sample1 - sample2, with normal approximation confidence intervals
+     * (Hedges and Olkin, 1985).
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values
+     * @param confidence confidence level of the intervals, e.g. 0.95
+     * @return the effect size
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NumberIsTooSmallException if the length of the arrays is < 2
+     * @throws OutOfRangeException if confidence is not in the range (0, 1)
+     */
+    public EffectSize effectSize(final double[] sample1, final double[] sample2, final double confidence)
+        throws NullArgumentException, NumberIsTooSmallException, OutOfRangeException {
+
+        verifyData(sample1);
+        verifyData(sample2);
+        if (confidence <= 0 || confidence >= 1) {
+            throw new OutOfRangeException(LocalizedFormats.OUT_OF_BOUNDS_CONFIDENCE_LEVEL, confidence, 0, 1);
+        }
+
+        final double n1 = sample1.length;
+        final double n2 = sample2.length;
+        final double degreesOfFreedom = n1 + n2 - 2;
+        final double pooledVariance = ((n1 - 1) * StatUtils.variance(sample1)
+            + (n2 - 1) * StatUtils.variance(sample2)) / degreesOfFreedom;
+        final double d = (StatUtils.mean(sample1) - StatUtils.mean(sample2)) / FastMath.sqrt(pooledVariance);
+        final double g = correction(degreesOfFreedom) * d;
+
+        final double z = new NormalDistribution().inverseCumulativeProbability(1 - (1 - confidence) / 2);
+        return new EffectSize(d, g, interval(d, n1, n2, z), interval(g, n1, n2, z), confidence,
+            sample1.length, sample2.length);
+    }
+
+    /**
+     * Simulated power of the Welch t-test for one effect size, sample size and significance level.
+     *
+     * @param effectSize difference in means in standard deviations
+     * @param sampleSize rows per group
+     * @param alpha significance level of the test
+     * @param simulations number of simulated pairs of samples, e.g. 10000
+     * @param seed seed for the simulation
+     * @return share of simulations in which equal means were rejected
+     * @throws NumberIsTooSmallException if sampleSize is < 2
+     * @throws OutOfRangeException if alpha is not in the range (0, 0.5]
+     * @throws NotStrictlyPositiveException if simulations is not strictly positive
+     */
+    public double power(final double effectSize, final int sampleSize, final double alpha,
+                        final int simulations, final long seed)
+        throws NumberIsTooSmallException, OutOfRangeException, NotStrictlyPositiveException {
+        return powerGrid(new double[] {effectSize}, new int[] {sampleSize}, new double[] {alpha},
+            simulations, seed).getPower(0, 0, 0);
+    }
+
+    /**
+     * Simulated power of the Welch t-test for every combination of the given effect sizes, sample sizes and
+     * significance levels.
+     *
+     * @param effectSizes differences in means in standard deviations
+     * @param sampleSizes rows per group
+     * @param alphas significance levels of the test
+     * @param simulations number of simulated pairs of samples per effect and sample size
+     * @param seed seed for the simulation
+     * @return the power of every combination
+     * @throws NullArgumentException if an array is <code>null
+     * @throws NoDataException if an array is empty
+     * @throws NumberIsTooSmallException if a sample size is < 2
+     * @throws OutOfRangeException if an alpha is not in the range (0, 0.5]
+     * @throws NotStrictlyPositiveException if simulations is not strictly positive
+     */
+    public PowerGrid powerGrid(final double[] effectSizes, final int[] sampleSizes, final double[] alphas,
+                               final int simulations, final long seed)
+        throws NullArgumentException, NoDataException, NumberIsTooSmallException, OutOfRangeException,
+        NotStrictlyPositiveException {
+
+        if (effectSizes == null || sampleSizes == null || alphas == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+        if (effectSizes.length == 0 || sampleSizes.length == 0 || alphas.length == 0) {
+            throw new NoDataException();
+        }
+        for (int sampleSize : sampleSizes) {
+            if (sampleSize < 2) {
+                throw new NumberIsTooSmallException(LocalizedFormats.INSUFFICIENT_DATA_FOR_T_STATISTIC,
+                    sampleSize, 2, true);
+            }
+        }
+        for (double alpha : alphas) {
+            if (alpha <= 0 || alpha > 0.5) {
+                throw new OutOfRangeException(LocalizedFormats.SIGNIFICANCE_LEVEL, alpha, 0.0, 0.5);
+            }
+        }
+        if (simulations <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NUMBER_OF_SAMPLES, simulations);
+        }
+
+        final int cells = effectSizes.length * sampleSizes.length;
+        final int blocksPerCell = (simulations + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final SplittableRandom root = new SplittableRandom(seed);
+        final SplittableRandom[] generators = new SplittableRandom[cells * blocksPerCell];
+        for (int task = 0; task < generators.length; task++) {
+            generators[task] = root.split();
+        }
+
+        final long[][] hits = new long[generators.length][];
+        IntStream.range(0, generators.length).parallel().forEach(task -> {
+            final int cell = task / blocksPerCell;
+            final int block = task % blocksPerCell;
+            hits[task] = simulate(effectSizes[cell / sampleSizes.length], sampleSizes[cell % sampleSizes.length],
+                alphas, Math.min(BLOCK_SIZE, simulations - block * BLOCK_SIZE), generators[task]);
+        });
+
+        final double[] power = new double[cells * alphas.length];
+        for (int task = 0; task < hits.length; task++) {
+            final int cell = task / blocksPerCell;
+            for (int a = 0; a < alphas.length; a++) {
+                power[cell * alphas.length + a] += hits[task][a];
+            }
+        }
+        for (int i = 0; i < power.length; i++) {
+            power[i] /= simulations;
+        }
+        return new PowerGrid(effectSizes.clone(), sampleSizes.clone(), alphas.clone(), power, simulations);
+    }
+
+    /**
+     * Smallest number of rows per group at which the Welch t-test reaches the target power. Every candidate
+     * size is simulated with the same seed, which keeps the simulated power close to monotonic in the sample size
+     * so it can be found by doubling and then bisecting.
+     *
+     * @param effectSize smallest difference in means of interest, in standard deviations
+     * @param alpha significance level of the test
+     * @param targetPower required power, e.g. 0.8
+     * @param simulations number of simulated pairs of samples per candidate size
+     * @param seed seed for the simulation
+     * @return minimum rows per group
+     * @throws NotStrictlyPositiveException if the effect size is 0 or simulations is not strictly positive
+     * @throws OutOfRangeException if alpha is not in the range (0, 0.5] or targetPower not in (alpha, 1)
+     * @throws NumberIsTooLargeException if more than MAX_SAMPLE_SIZE rows per group would be needed
+     */
+    public int minimumSampleSize(final double effectSize, final double alpha, final double targetPower,
+                                 final int simulations, final long seed)
+        throws NotStrictlyPositiveException, OutOfRangeException, NumberIsTooLargeException {
+
+        if (!(FastMath.abs(effectSize) > 0)) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NUMBER_TOO_SMALL, FastMath.abs(effectSize));
+        }
+        if (targetPower <= alpha || targetPower >= 1) {
+            throw new OutOfRangeException(targetPower, alpha, 1);
+        }
+
+        int low = 1;
+        int high = 2;
+        while (power(effectSize, high, alpha, simulations, seed) < targetPower) {
+            if (high >= MAX_SAMPLE_SIZE) {
+                throw new NumberIsTooLargeException(2L * high, MAX_SAMPLE_SIZE, true);
+            }
+            low = high;
+            high *= 2;
+        }
+        // power(low) < target <= power(high)
+        while (high - low > 1) {
+            final int middle = (low + high) >>> 1;
+            if (power(effectSize, middle, alpha, simulations, seed) < targetPower) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Runs count simulations of one grid cell and counts the rejections at every alpha.
+     */
+    private long[] simulate(double effectSize, int sampleSize, double[] alphas, int count, SplittableRandom random) {
+        final double shift = effectSize * referenceStandardDeviation;
+        final double[] sample1 = new double[sampleSize];
+        final double[] sample2 = new double[sampleSize];
+        final long[] hits = new long[alphas.length];
+
+        for (int s = 0; s < count; s++) {
+            draw(random, sample1);
+            draw(random, sample2);
+            final double m1 = mean(sample1);
+            final double unshifted = mean(sample2);
+            final double m2 = unshifted + shift;
+            final double v1 = variance(sample1, m1);
+            final double v2 = variance(sample2, unshifted);
+            for (int a = 0; a < alphas.length; a++) {
+                final boolean rejected = v1 + v2 == 0
+                    ? m1 != m2
+                    : runTTest.reject(m1, m2, v1, v2, sampleSize, sampleSize, alphas[a]);
+                if (rejected) {
+                    hits[a]++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    private void draw(SplittableRandom random, double[] sample) {
+        if (reference != null) {
+            for (int i = 0; i < sample.length; i++) {
+                sample[i] = reference[random.nextInt(reference.length)];
+            }
+            return;
+        }
+        // Marsaglia polar method, two normal values per accepted point
+        for (int i = 0; i < sample.length; i += 2) {
+            double u;
+            double v;
+            double s;
+            do {
+                u = 2 * random.nextDouble() - 1;
+                v = 2 * random.nextDouble() - 1;
+                s = u * u + v * v;
+            } while (s >= 1 || s == 0);
+            final double scale = FastMath.sqrt(-2 * FastMath.log(s) / s);
+            sample[i] = u * scale;
+            if (i + 1 < sample.length) {
+                sample[i + 1] = v * scale;
+            }
+        }
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double variance(double[] values, double mean) {
+        double sum = 0;
+        for (double value : values) {
+            final double deviation = value - mean;
+            sum += deviation * deviation;
+        }
+        return sum / (values.length - 1);
+    }
+
+    /**
+     * Exact small sample bias correction J(df) = Gamma(df / 2) / (sqrt(df / 2) * Gamma((df - 1) / 2)).
+     */
+    private static double correction(double degreesOfFreedom) {
+        return FastMath.exp(Gamma.logGamma(degreesOfFreedom / 2) - Gamma.logGamma((degreesOfFreedom - 1) / 2))
+            / FastMath.sqrt(degreesOfFreedom / 2);
+    }
+
+    private static double[] interval(double effect, double n1, double n2, double z) {
+        final double standardError = FastMath.sqrt((n1 + n2) / (n1 * n2) + effect * effect / (2 * (n1 + n2)));
+        return new double[] {effect - z * standardError, effect + z * standardError};
+    }
+
+    /**
+     * Helper method to verify that input is not null and length is greater than 2.
+     * @param data input data.
+     * @throws NullPointerException
+     * @throws NumberIsTooSmallException
+     */
+    private static void verifyData(final double[] data)
+        throws NullPointerException, NumberIsTooSmallException {
+
+        if (data == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+
+        if (data.length < 2) {
+            throw new NumberIsTooSmallException(LocalizedFormats.INSUFFICIENT_DATA_FOR_T_STATISTIC, data.length, 2, true);
+        }
+    }
+
+    /**
+     * Prints the effect sizes found in final.csv, the simulated power of the t-test on resampled scores, and the
+     * number of TextPassage passages needed to detect the smallest effect of interest.
+     * Argument: [smallest effect size of interest in standard deviations, default 0.2]
+     */
+    public static void main(String[] args) throws IOException, CsvValidationException {
+        double smallestEffect = args.length > 0 ? Double.parseDouble(args[0]) : 0.2;
+
+        SentimentCSVParser parser = new SentimentCSVParser();
+        ScoreGroups groups = parser.getScoreGroups("final.csv", Grouping.RACE, Grouping.GENDER);
+        double[] black = groups.get(Grouping.RACE, Race.BLACK.toString());
+        double[] white = groups.get(Grouping.RACE, Race.WHITE.toString());
+        double[] reference = new double[black.length + white.length];
+        System.arraycopy(black, 0, reference, 0, black.length);
+        System.arraycopy(white, 0, reference, black.length, white.length);
+
+        PowerAnalysis analysis = new PowerAnalysis(new RunTTest(), reference);
+        System.out.println("Black vs white names: " + analysis.effectSize(black, white, 0.95));
+        System.out.println("Male vs female names: " + analysis.effectSize(
+            groups.get(Grouping.GENDER, Gender.MALE.toString()), groups.get(Grouping.GENDER, Gender.FEMALE.toString()),
+            0.95));
+
+        System.out.println("\nSimulated power of the t-test on resampled positive scores:");
+        System.out.println(analysis.powerGrid(new double[] {0.1, 0.2, 0.3, 0.5, 0.8},
+            new int[] {20, 40, 80, 160, 320, 640, 1280, 2560}, new double[] {0.01, 0.05, ALPHA}, SIMULATIONS, SEED));
+
+        int rowsPerGroup = analysis.minimumSampleSize(smallestEffect, ALPHA, TARGET_POWER, SIMULATIONS, SEED);
+        int blackNames = 0;
+        for (NameList nameList : TextPassage.getNameLists()) {
+            if (nameList.getRace() == Race.BLACK) {
+                blackNames += nameList.size();
+            }
+        }
+        int passages = (rowsPerGroup + blackNames - 1) / blackNames;
+        System.out.println(String.format("Detecting an effect of %s standard deviations at alpha %s with power %s "
+                + "needs %d rows per group: %d passages with %d names per race group.",
+            smallestEffect, ALPHA, TARGET_POWER, rowsPerGroup, passages, blackNames));
+    }
+}
@@ -0,0 +1,83 @@
+package runtest;
+
+/**
+ * Simulated power of the Welch t-test for every combination of effect size, sample size per group and
+ * significance level of a PowerAnalysis run.
+ */
+public class PowerGrid {
+
+    private final double[] effectSizes;
+    private final int[] sampleSizes;
+    private final double[] alphas;
+    // indexed [(effect * sampleSizes.length + sampleSize) * alphas.length + alpha]
+    private final double[] power;
+    private final int simulations;
+
+    PowerGrid(double[] effectSizes, int[] sampleSizes, double[] alphas, double[] power, int simulations) {
+        this.effectSizes = effectSizes;
+        this.sampleSizes = sampleSizes;
+        this.alphas = alphas;
+        this.power = power;
+        this.simulations = simulations;
+    }
+
+    public double[] getEffectSizes() {
+        return effectSizes.clone();
+    }
+
+    public int[] getSampleSizes() {
+        return sampleSizes.clone();
+    }
+
+    public double[] getAlphas() {
+        return alphas.clone();
+    }
+
+    public int getSimulations() {
+        return simulations;
+    }
+
+    /**
+     * @param effect index into getEffectSizes().
+     * @param sampleSize index into getSampleSizes().
+     * @param alpha index into getAlphas().
+     * @return share of simulations in which equal means were rejected.
+     */
+    public double getPower(int effect, int sampleSize, int alpha) {
+        return power[(effect * sampleSizes.length + sampleSize) * alphas.length + alpha];
+    }
+
+    /**
+     * @param effect index into getEffectSizes().
+     * @param alpha index into getAlphas().
+     * @param targetPower required power, e.g. 0.8.
+     * @return the smallest sample size of the grid that reaches the target power, or -1 if none does.
+     */
+    public int getMinimumSampleSize(int effect, int alpha, double targetPower) {
+        for (int n = 0; n < sampleSizes.length; n++) {
+            if (getPower(effect, n, alpha) >= targetPower) {
+                return sampleSizes[n];
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%8s %8s", "alpha", "effect"));
+        for (int n : sampleSizes) {
+            table.append(String.format(" %8s", "n=" + n));
+        }
+        table.append(String.format("%n"));
+        for (int a = 0; a < alphas.length; a++) {
+            for (int e = 0; e < effectSizes.length; e++) {
+                table.append(String.format("%8.3f %8.3f", alphas[a], effectSizes[e]));
+                for (int n = 0; n < sampleSizes.length; n++) {
+                    table.append(String.format(" %8.3f", getPower(e, n, a)));
+                }
+                table.append(String.format("%n"));
+            }
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,267 @@
+package runtest;
+
+import datageneration.ScoreHistogram;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NotANumberException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.special.Erf;
+import org.apache.commons.math3.stat.inference.KolmogorovSmirnovTest;
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.Arrays;
+
+/**
+ * Rank based alternatives to the Welch test in RunTTest: the Mann-Whitney U test and the two-sample
+ * Kolmogorov-Smirnov test. Confidence scores are bounded and skewed, and these tests make no assumption about
+ * their distribution.
+ *
+ * Both samples are copied and sorted as primitive arrays (Arrays.parallelSort above PARALLEL_SORT_THRESHOLD
+ * values), then walked together once in increasing order, one run of tied values at a time. The walk yields the
+ * rank sum with midranks for ties and the largest distance between the empirical distribution functions, so
+ * nothing is boxed and no rank array is built. The approximate variants walk two ScoreHistograms bin by bin
+ * instead and need no sort at all.
+ */
+public class RankTest {
+
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    // below this n1 * n2 the Kolmogorov-Smirnov p-value is computed exactly, as in commons-math
+    private static final long EXACT_KS_PRODUCT = 10000;
+
+    private static final KolmogorovSmirnovTest KOLMOGOROV_SMIRNOV = new KolmogorovSmirnovTest();
+
+    /**
+     * Returns the Mann-Whitney U statistic of sample1, the number of pairs in which the value of sample1 is the
+     * larger, counting ties as one half.
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values
+     * @return U statistic of sample1
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NoDataException if an array is empty
+     * @throws NotANumberException if an array contains NaN
+     */
+    public double mannWhitneyU(final double[] sample1, final double[] sample2)
+        throws NullArgumentException, NoDataException, NotANumberException {
+        return walk(sample1, sample2).getU();
+    }
+
+    /**
+     * Returns the p-value of a two-sided Mann-Whitney U test of the null hypothesis that both samples come from
+     * the same distribution, from the normal approximation with the variance corrected for ties.
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values
+     * @return p-value for the Mann-Whitney U test
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NoDataException if an array is empty
+     * @throws NotANumberException if an array contains NaN
+     */
+    public double mannWhitneyUTest(final double[] sample1, final double[] sample2)
+        throws NullArgumentException, NoDataException, NotANumberException {
+        return walk(sample1, sample2).getMannWhitneyPValue();
+    }
+
+    /**
+     * Returns the two-sample Kolmogorov-Smirnov statistic, the largest distance between the empirical
+     * distribution functions of both samples.
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values
+     * @return D statistic
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NoDataException if an array is empty
+     * @throws NotANumberException if an array contains NaN
+     */
+    public double kolmogorovSmirnovStatistic(final double[] sample1, final double[] sample2)
+        throws NullArgumentException, NoDataException, NotANumberException {
+        return walk(sample1, sample2).getD();
+    }
+
+    /**
+     * Returns the p-value of a two-sample Kolmogorov-Smirnov test of the null hypothesis that both samples come
+     * from the same distribution. Exact when n1 * n2 < 10000, asymptotic above, as in commons-math.
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values
+     * @return p-value for the Kolmogorov-Smirnov test
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NoDataException if an array is empty
+     * @throws NotANumberException if an array contains NaN
+     */
+    public double kolmogorovSmirnovTest(final double[] sample1, final double[] sample2)
+        throws NullArgumentException, NoDataException, NotANumberException {
+        return walk(sample1, sample2).getKolmogorovSmirnovPValue();
+    }
+
+    /**
+     * Same test as mannWhitneyUTest(double[], double[]) on two histograms, treating scores in the same bin as ties.
+     *
+     * @param sample1 histogram of the first sample
+     * @param sample2 histogram of the second sample, with the same bins
+     * @return approximate p-value for the Mann-Whitney U test
+     * @throws NullArgumentException if a histogram is <code>null
+     * @throws NoDataException if a histogram is empty
+     * @throws DimensionMismatchException if the histograms have different bins
+     */
+    public double mannWhitneyUTest(final ScoreHistogram sample1, final ScoreHistogram sample2)
+        throws NullArgumentException, NoDataException, DimensionMismatchException {
+        return walk(sample1, sample2).getMannWhitneyPValue();
+    }
+
+    /**
+     * Same test as kolmogorovSmirnovTest(double[], double[]) on two histograms, always asymptotic. D is measured
+     * at bin edges, so it is at most the largest bin share smaller than on the scores themselves.
+     *
+     * @param sample1 histogram of the first sample
+     * @param sample2 histogram of the second sample, with the same bins
+     * @return approximate p-value for the Kolmogorov-Smirnov test
+     * @throws NullArgumentException if a histogram is <code>null
+     * @throws NoDataException if a histogram is empty
+     * @throws DimensionMismatchException if the histograms have different bins
+     */
+    public double kolmogorovSmirnovTest(final ScoreHistogram sample1, final ScoreHistogram sample2)
+        throws NullArgumentException, NoDataException, DimensionMismatchException {
+        final RankWalk walk = walk(sample1, sample2);
+        return KOLMOGOROV_SMIRNOV.approximateP(walk.getD(), (int) sample1.size(), (int) sample2.size());
+    }
+
+    private static RankWalk walk(final double[] sample1, final double[] sample2) {
+        verifyData(sample1);
+        verifyData(sample2);
+        final double[] sorted1 = sorted(sample1);
+        final double[] sorted2 = sorted(sample2);
+
+        final RankWalk walk = new RankWalk(sorted1.length, sorted2.length);
+        int i = 0;
+        int j = 0;
+        while (i < sorted1.length || j < sorted2.length) {
+            final double value = j == sorted2.length || (i < sorted1.length && sorted1[i] <= sorted2[j])
+                ? sorted1[i] : sorted2[j];
+            final int start1 = i;
+            final int start2 = j;
+            while (i < sorted1.length && sorted1[i] == value) {
+                i++;
+            }
+            while (j < sorted2.length && sorted2[j] == value) {
+                j++;
+            }
+            walk.add(i - start1, j - start2);
+        }
+        return walk;
+    }
+
+    private static RankWalk walk(final ScoreHistogram sample1, final ScoreHistogram sample2) {
+        if (sample1 == null || sample2 == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+        if (sample1.size() == 0 || sample2.size() == 0) {
+            throw new NoDataException();
+        }
+        if (sample1.getBins() != sample2.getBins()) {
+            throw new DimensionMismatchException(sample1.getBins(), sample2.getBins());
+        }
+        final RankWalk walk = new RankWalk(sample1.size(), sample2.size());
+        for (int bin = 0; bin < sample1.getBins(); bin++) {
+            walk.add(sample1.getCount(bin), sample2.getCount(bin));
+        }
+        return walk;
+    }
+
+    private static double[] sorted(final double[] sample) {
+        final double[] sorted = sample.clone();
+        if (sorted.length > PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(sorted);
+        } else {
+            Arrays.sort(sorted);
+        }
+        // Arrays.sort places NaN last
+        if (Double.isNaN(sorted[sorted.length - 1])) {
+            throw new NotANumberException();
+        }
+        return sorted;
+    }
+
+    /**
+     * Helper method to verify that input is not null and not empty.
+     * @param data input data.
+     * @throws NullArgumentException
+     * @throws NoDataException
+     */
+    private static void verifyData(final double[] data)
+        throws NullArgumentException, NoDataException {
+
+        if (data == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+
+        if (data.length == 0) {
+            throw new NoDataException();
+        }
+    }
+
+    /**
+     * Running state of a walk over both samples in increasing order, fed one run of tied values at a time.
+     */
+    private static final class RankWalk {
+
+        private final double n1;
+        private final double n2;
+        private double nextRank = 1;
+        private double rankSum1;
+        private double tieCorrection;
+        private double cumulative1;
+        private double cumulative2;
+        private double d;
+
+        RankWalk(long n1, long n2) {
+            this.n1 = n1;
+            this.n2 = n2;
+        }
+
+        /**
+         * @param count1 values of sample1 in the run.
+         * @param count2 values of sample2 in the run.
+         */
+        void add(long count1, long count2) {
+            final double tied = count1 + count2;
+            if (tied == 0) {
+                return;
+            }
+            rankSum1 += count1 * (nextRank + (tied - 1) / 2);
+            tieCorrection += tied * tied * tied - tied;
+            nextRank += tied;
+            cumulative1 += count1;
+            cumulative2 += count2;
+            d = FastMath.max(d, FastMath.abs(cumulative1 / n1 - cumulative2 / n2));
+        }
+
+        double getU() {
+            return rankSum1 - n1 * (n1 + 1) / 2;
+        }
+
+        double getD() {
+            return d;
+        }
+
+        double getMannWhitneyPValue() {
+            final double n = n1 + n2;
+            final double variance = n1 * n2 / 12 * ((n + 1) - tieCorrection / (n * (n - 1)));
+            if (variance <= 0) {
+                // every value is tied, so the samples cannot be told apart
+                return 1;
+            }
+            final double z = (getU() - n1 * n2 / 2) / FastMath.sqrt(variance);
+            return Erf.erfc(FastMath.abs(z) / FastMath.sqrt(2));
+        }
+
+        double getKolmogorovSmirnovPValue() {
+            if (n1 * n2 < EXACT_KS_PRODUCT) {
+                return KOLMOGOROV_SMIRNOV.exactP(d, (int) n1, (int) n2, true);
+            }
+            return KOLMOGOROV_SMIRNOV.approximateP(d, (int) n1, (int) n2);
+        }
+    }
+}
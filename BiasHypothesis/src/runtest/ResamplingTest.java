@@ -0,0 +1,209 @@
+package runtest;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Nonparametric alternatives to the Welch test in RunTTest for the difference in mean scores of two groups.
+ * Confidence scores are bounded in [0, 1] and usually skewed, so the normality the t-test relies on does not hold.
+ *
+ * Resamples are cut into fixed blocks of BLOCK_SIZE. Every block gets its own random generator, split from the
+ * seed in block order before any work starts, and blocks run in parallel on the common fork-join pool. Results
+ * therefore depend only on the seed and the number of resamples, never on the number of threads. The inner loops
+ * work on primitive arrays and allocate nothing.
+ */
+public class ResamplingTest {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    // absolute slack when comparing resampled differences with the observed one, so a permutation that reproduces
+    // the observed split is counted despite a different summation order
+    private static final double TIE_TOLERANCE = 1e-12;
+
+    /**
+     * Two-sided permutation test of equal means. Group labels are shuffled resamples times; the p-value is the
+     * share of shuffles whose absolute difference in means is at least the observed one, counting the observed
+     * split itself: (1 + hits) / (1 + resamples).
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values
+     * @param resamples number of random permutations, e.g. 100000
+     * @param seed seed for the random permutations
+     * @return permutation p-value
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NumberIsTooSmallException if the length of the arrays is < 2
+     * @throws NotStrictlyPositiveException if resamples is not strictly positive
+     */
+    public double permutationTest(final double[] sample1, final double[] sample2,
+                                  final int resamples, final long seed)
+        throws NullArgumentException, NumberIsTooSmallException, NotStrictlyPositiveException {
+
+        verifyData(sample1);
+        verifyData(sample2);
+        verifyResamples(resamples);
+
+        final int n1 = sample1.length;
+        final int n2 = sample2.length;
+        final double[] pooled = new double[n1 + n2];
+        System.arraycopy(sample1, 0, pooled, 0, n1);
+        System.arraycopy(sample2, 0, pooled, n1, n2);
+
+        final double total = sum(pooled);
+        final double sum1 = sum(sample1);
+        final double threshold = FastMath.abs(sum1 / n1 - (total - sum1) / n2) - TIE_TOLERANCE;
+
+        // only the smaller group has to be drawn; the other one is the rest of the pool
+        final int drawn = Math.min(n1, n2);
+        final boolean drawFirst = n1 <= n2;
+
+        final SplittableRandom[] generators = generators(resamples, seed);
+        final long hits = IntStream.range(0, generators.length).parallel().mapToLong(block -> {
+            final SplittableRandom random = generators[block];
+            final double[] work = pooled.clone();
+            final int count = blockSize(block, resamples);
+            long blockHits = 0;
+            for (int r = 0; r < count; r++) {
+                double drawnSum = 0;
+                for (int i = 0; i < drawn; i++) {
+                    final int j = i + random.nextInt(work.length - i);
+                    final double swap = work[i];
+                    work[i] = work[j];
+                    work[j] = swap;
+                    drawnSum += work[i];
+                }
+                final double s1 = drawFirst ? drawnSum : total - drawnSum;
+                if (FastMath.abs(s1 / n1 - (total - s1) / n2) >= threshold) {
+                    blockHits++;
+                }
+            }
+            return blockHits;
+        }).sum();
+
+        return (1.0 + hits) / (1.0 + resamples);
+    }
+
+    /**
+     * Percentile bootstrap confidence interval for mean(sample1) - mean(sample2). Each resample draws both
+     * groups with replacement at their original sizes.
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values
+     * @param resamples number of bootstrap resamples, e.g. 100000
+     * @param confidence confidence level of the interval, e.g. 0.95
+     * @param seed seed for the resampling
+     * @return array of two values, the lower and upper bound of the interval
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NumberIsTooSmallException if the length of the arrays is < 2
+     * @throws NotStrictlyPositiveException if resamples is not strictly positive
+     * @throws OutOfRangeException if confidence is not in the range (0, 1)
+     */
+    public double[] bootstrapConfidenceInterval(final double[] sample1, final double[] sample2,
+                                                final int resamples, final double confidence, final long seed)
+        throws NullArgumentException, NumberIsTooSmallException, NotStrictlyPositiveException,
+        OutOfRangeException {
+
+        verifyData(sample1);
+        verifyData(sample2);
+        verifyResamples(resamples);
+        if (confidence <= 0 || confidence >= 1) {
+            throw new OutOfRangeException(LocalizedFormats.OUT_OF_BOUNDS_CONFIDENCE_LEVEL, confidence, 0, 1);
+        }
+
+        final int n1 = sample1.length;
+        final int n2 = sample2.length;
+        final double[] differences = new double[resamples];
+
+        final SplittableRandom[] generators = generators(resamples, seed);
+        IntStream.range(0, generators.length).parallel().forEach(block -> {
+            final SplittableRandom random = generators[block];
+            final int offset = block * BLOCK_SIZE;
+            final int count = blockSize(block, resamples);
+            for (int r = 0; r < count; r++) {
+                double s1 = 0;
+                for (int i = 0; i < n1; i++) {
+                    s1 += sample1[random.nextInt(n1)];
+                }
+                double s2 = 0;
+                for (int i = 0; i < n2; i++) {
+                    s2 += sample2[random.nextInt(n2)];
+                }
+                differences[offset + r] = s1 / n1 - s2 / n2;
+            }
+        });
+
+        if (resamples > BLOCK_SIZE) {
+            Arrays.parallelSort(differences);
+        } else {
+            Arrays.sort(differences);
+        }
+        final double tail = (1.0 - confidence) / 2.0;
+        return new double[] {quantile(differences, tail), quantile(differences, 1.0 - tail)};
+    }
+
+    /**
+     * One generator per block, split from the seed in block order.
+     */
+    private static SplittableRandom[] generators(int resamples, long seed) {
+        final int blocks = (resamples + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final SplittableRandom root = new SplittableRandom(seed);
+        final SplittableRandom[] generators = new SplittableRandom[blocks];
+        for (int block = 0; block < blocks; block++) {
+            generators[block] = root.split();
+        }
+        return generators;
+    }
+
+    private static int blockSize(int block, int resamples) {
+        return Math.min(BLOCK_SIZE, resamples - block * BLOCK_SIZE);
+    }
+
+    /**
+     * Linear interpolation between the closest ranks of a sorted array.
+     */
+    private static double quantile(double[] sorted, double p) {
+        final double position = p * (sorted.length - 1);
+        final int lower = (int) Math.floor(position);
+        final int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    private static double sum(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private void verifyResamples(final int resamples) throws NotStrictlyPositiveException {
+        if (resamples <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NUMBER_OF_SAMPLES, resamples);
+        }
+    }
+
+    /**
+     * Helper method to verify that input is not null and length is greater than 2.
+     * @param data input data.
+     * @throws NullPointerException
+     * @throws NumberIsTooSmallException
+     */
+    private void verifyData(final double[] data)
+        throws NullPointerException, NumberIsTooSmallException{
+
+        if (data == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+
+        if (data.length < 2) {
+            throw new NumberIsTooSmallException(LocalizedFormats.INSUFFICIENT_DATA_FOR_T_STATISTIC, data.length, 2, true);
+        }
+    }
+}
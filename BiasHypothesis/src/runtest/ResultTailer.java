@@ -0,0 +1,129 @@
+package runtest;
+
+import com.opencsv.CSVParser;
+import metrics.Metrics;
+import metrics.StageMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Follows a result file, or a directory that result part-files are added to, and hands every complete row
+ * written since the last poll to a consumer. Only bytes appended since the last poll are read. A line without its
+ * line break yet is left for the next poll; a file that shrinks is assumed to have been replaced and is read
+ * again from the start. Rows must not contain line breaks inside quoted fields.
+ *
+ * A row that cannot be parsed, or that the consumer rejects with a runtime exception, is counted as a parse error
+ * and skipped, so one bad line does not stop a long-running tail. The offset of a file moves past every row as
+ * soon as it is handled, so a row is never delivered twice even if a poll fails half way through a file.
+ */
+public class ResultTailer {
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    private final Path input;
+    private final Map<Path, Long> offsets = new HashMap<>();
+    private final CSVParser parser = new CSVParser();
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+
+    /**
+     * @param input a result file or a directory of result part-files.
+     */
+    public ResultTailer(Path input) {
+        this.input = input;
+    }
+
+    /**
+     * Reads every complete row appended since the last call, file by file in name order. Polls that find no new
+     * rows are not recorded in the parse metrics, so idle polling does not hide real parse calls.
+     * @param sink receives the parsed rows.
+     * @return number of rows delivered.
+     * @throws IOException if a file cannot be read.
+     */
+    public long poll(Consumer<String[]> sink) throws IOException {
+        StageMetrics.Span span = Metrics.PARSE.start();
+        long rows = 0;
+        for (Path file : files()) {
+            rows += poll(file, sink);
+        }
+        if (rows > 0) {
+            span.finish(rows);
+        }
+        return rows;
+    }
+
+    private List<Path> files() throws IOException {
+        if (!Files.isDirectory(input)) {
+            return Files.exists(input) ? Arrays.asList(input) : new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(input)) {
+            return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private long poll(Path file, Consumer<String[]> sink) throws IOException {
+        long rows = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long offset = offsets.getOrDefault(file, 0L);
+            if (channel.size() < offset) {
+                offset = 0;
+            }
+            channel.position(offset);
+            offsets.put(file, offset);
+            long startOffset = offset;
+
+            byte[] pending = new byte[0];
+            buffer.clear();
+            try {
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    byte[] chunk = new byte[pending.length + buffer.remaining()];
+                    System.arraycopy(pending, 0, chunk, 0, pending.length);
+                    buffer.get(chunk, pending.length, buffer.remaining());
+                    buffer.clear();
+
+                    int lineStart = 0;
+                    for (int pos = 0; pos < chunk.length; pos++) {
+                        if (chunk[pos] == '\n') {
+                            int lineEnd = pos > lineStart && chunk[pos - 1] == '\r' ? pos - 1 : pos;
+                            if (lineEnd > lineStart && deliver(
+                                new String(chunk, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8), sink)) {
+                                rows++;
+                            }
+                            offset += pos + 1 - lineStart;
+                            lineStart = pos + 1;
+                            offsets.put(file, offset);
+                        }
+                    }
+                    pending = Arrays.copyOfRange(chunk, lineStart, chunk.length);
+                }
+            } finally {
+                Metrics.PARSE.addBytesRead(offset - startOffset);
+            }
+        }
+        return rows;
+    }
+
+    private boolean deliver(String line, Consumer<String[]> sink) {
+        try {
+            sink.accept(parser.parseLine(line));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Metrics.PARSE.addError();
+            return false;
+        }
+    }
+}
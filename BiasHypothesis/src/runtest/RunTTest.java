@@ -1,6 +1,10 @@
 package runtest;
 
+import datageneration.SentimentColumns;
+import enums.ScoreColumn;
+import metrics.Metrics;
 import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MaxCountExceededException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NullArgumentException;
@@ -8,10 +12,18 @@ import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.inference.ChiSquareTest;
 import org.apache.commons.math3.util.FastMath;
 
+import java.util.Arrays;
+
 public class RunTTest {
 
+    private static final TDistributionCache DISTRIBUTIONS = new TDistributionCache(1024);
+    private static final TCriticalValues CRITICAL_VALUES = new TCriticalValues();
+    private static final ChiSquareTest CHI_SQUARE = new ChiSquareTest();
+    private static final ScoreColumn[] SCORE_COLUMNS = ScoreColumn.values();
+
     /**
      * Performs a two-sided t-test evaluating the null hypothesis that sample1
      * and sample2 are drawn from populations with the same mean,
@@ -56,7 +68,16 @@ public class RunTTest {
         OutOfRangeException, MaxCountExceededException {
 
         checkSignificanceLevel(alpha);
-        return tTest(sample1, sample2) < alpha;
+        verifyData(sample1);
+        verifyData(sample2);
+
+        // one decision: the exact p-value is cheaper than the inverse cdfs of a critical value table
+        final long start = System.nanoTime();
+        final boolean rejected = tTest(StatUtils.mean(sample1), StatUtils.mean(sample2),
+            StatUtils.variance(sample1), StatUtils.variance(sample2),
+            sample1.length, sample2.length) < alpha;
+        Metrics.TTEST.record(System.nanoTime() - start, sample1.length + sample2.length);
+        return rejected;
 
     }
 
@@ -102,9 +123,192 @@ public class RunTTest {
         verifyData(sample1);
         verifyData(sample2);
 
-        return tTest(StatUtils.mean(sample1), StatUtils.mean(sample2),
+        final long start = System.nanoTime();
+        final double pValue = tTest(StatUtils.mean(sample1), StatUtils.mean(sample2),
             StatUtils.variance(sample1), StatUtils.variance(sample2),
             sample1.length, sample2.length);
+        Metrics.TTEST.record(System.nanoTime() - start, sample1.length + sample2.length);
+        return pValue;
+
+    }
+
+    /**
+     * Same test as tTest(double[], double[], double) but on the running statistics of two samples, so the
+     * samples never have to be held in memory.
+     *
+     * @param sample1 statistics of the first sample
+     * @param sample2 statistics of the second sample
+     * @param alpha significance level of the test
+     * @return true if the null hypothesis can be rejected with
+     * confidence 1 - alpha
+     * @throws NullArgumentException if an accumulator is <code>null
+     * @throws NumberIsTooSmallException if an accumulator holds fewer than 2 values
+     * @throws OutOfRangeException if <code>alpha is not in the range (0, 0.5]
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     */
+    public boolean tTest(final WelchAccumulator sample1, final WelchAccumulator sample2,
+                         final double alpha)
+        throws NullArgumentException, NumberIsTooSmallException,
+        OutOfRangeException, MaxCountExceededException {
+
+        checkSignificanceLevel(alpha);
+        verifyData(sample1);
+        verifyData(sample2);
+
+        return tTest(sample1.getMean(), sample2.getMean(),
+            sample1.getVariance(), sample2.getVariance(),
+            sample1.getN(), sample2.getN()) < alpha;
+
+    }
+
+    /**
+     * Same p-value as tTest(double[], double[]) but on the running statistics of two samples.
+     *
+     * @param sample1 statistics of the first sample
+     * @param sample2 statistics of the second sample
+     * @return p-value for t-test
+     * @throws NullArgumentException if an accumulator is <code>null
+     * @throws NumberIsTooSmallException if an accumulator holds fewer than 2 values
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     */
+    public double tTest(final WelchAccumulator sample1, final WelchAccumulator sample2)
+        throws NullArgumentException, NumberIsTooSmallException,
+        MaxCountExceededException {
+
+        verifyData(sample1);
+        verifyData(sample2);
+
+        return tTest(sample1.getMean(), sample2.getMean(),
+            sample1.getVariance(), sample2.getVariance(),
+            sample1.getN(), sample2.getN());
+
+    }
+
+    /**
+     * Runs tTest(double[], double[]) on every score dimension of two groups parsed in the same pass.
+     *
+     * @param sample1 columns of the first group
+     * @param sample2 columns of the second group
+     * @return p-values for t-test, indexed by ScoreColumn ordinal
+     * @throws NullArgumentException if the columns are <code>null
+     * @throws NumberIsTooSmallException if a group holds fewer than 2 rows
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     */
+    public double[] tTest(final SentimentColumns sample1, final SentimentColumns sample2)
+        throws NullArgumentException, NumberIsTooSmallException,
+        MaxCountExceededException {
+
+        verifyData(sample1);
+        verifyData(sample2);
+
+        final double[] pValues = new double[SCORE_COLUMNS.length];
+        for (ScoreColumn column : SCORE_COLUMNS) {
+            pValues[column.ordinal()] = tTest(sample1.get(column), sample2.get(column));
+        }
+        return pValues;
+
+    }
+
+    /**
+     * Returns the observed significance level, or p-value, associated with a paired, two-sample, two-tailed
+     * t-test based on the data in the input arrays. The test is a one-sample t-test of the null hypothesis that the
+     * mean of the paired differences sample1[i] - sample2[i] is 0, with n - 1 degrees of freedom.
+     *
+     * Preconditions:
+     *
+     * The input arrays must have the same length and their common length must be at least 2.
+     *
+     * @param sample1 array of sample data values
+     * @param sample2 array of sample data values, paired with sample1 by index
+     * @return p-value for paired t-test
+     * @throws NullArgumentException if the arrays are <code>null
+     * @throws NumberIsTooSmallException if the length of the arrays is < 2
+     * @throws DimensionMismatchException if the length of the arrays is not equal
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     */
+    public double pairedTTest(final double[] sample1, final double[] sample2)
+        throws NullArgumentException, NumberIsTooSmallException,
+        DimensionMismatchException, MaxCountExceededException {
+
+        verifyData(sample1);
+        verifyData(sample2);
+        if (sample1.length != sample2.length) {
+            throw new DimensionMismatchException(sample1.length, sample2.length);
+        }
+
+        final double meanDifference = StatUtils.meanDifference(sample1, sample2);
+        return tTest(meanDifference, 0,
+            StatUtils.varianceDifference(sample1, sample2, meanDifference),
+            sample1.length);
+
+    }
+
+    /**
+     * Returns the p-value of a chi-square test of the null hypothesis that the dominant sentiment labels of two
+     * groups follow the same distribution.
+     *
+     * Labels neither group has are left out of the contingency table. When fewer than two labels remain both
+     * groups have the same single label, and 1 is returned.
+     *
+     * @param sample1 columns of the first group
+     * @param sample2 columns of the second group
+     * @return p-value for the chi-square test
+     * @throws NullArgumentException if the columns are <code>null
+     * @throws NumberIsTooSmallException if a group holds fewer than 2 rows
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     */
+    public double chiSquareTest(final SentimentColumns sample1, final SentimentColumns sample2)
+        throws NullArgumentException, NumberIsTooSmallException,
+        MaxCountExceededException {
+
+        verifyData(sample1);
+        verifyData(sample2);
+
+        final long[] counts1 = sample1.getLabelCounts();
+        final long[] counts2 = sample2.getLabelCounts();
+        int observed = 0;
+        for (int label = 0; label < counts1.length; label++) {
+            if (counts1[label] + counts2[label] > 0) {
+                counts1[observed] = counts1[label];
+                counts2[observed] = counts2[label];
+                observed++;
+            }
+        }
+        if (observed < 2) {
+            return 1.0;
+        }
+        return CHI_SQUARE.chiSquareTestDataSetsComparison(
+            Arrays.copyOf(counts1, observed), Arrays.copyOf(counts2, observed));
+
+    }
+
+    /**
+     * Compares two groups on every score dimension and on their label distribution.
+     *
+     * @param sample1 columns of the first group
+     * @param sample2 columns of the second group
+     * @param alpha significance level of the tests
+     * @return means, p-values and decisions of every test
+     * @throws NullArgumentException if the columns are <code>null
+     * @throws NumberIsTooSmallException if a group holds fewer than 2 rows
+     * @throws OutOfRangeException if <code>alpha is not in the range (0, 0.5]
+     * @throws MaxCountExceededException if an error occurs computing a p-value
+     */
+    public SentimentComparison compare(final SentimentColumns sample1, final SentimentColumns sample2,
+                                       final double alpha)
+        throws NullArgumentException, NumberIsTooSmallException,
+        OutOfRangeException, MaxCountExceededException {
+
+        checkSignificanceLevel(alpha);
+        final double[] pValues = tTest(sample1, sample2);
+        final double[] means1 = new double[SCORE_COLUMNS.length];
+        final double[] means2 = new double[SCORE_COLUMNS.length];
+        for (ScoreColumn column : SCORE_COLUMNS) {
+            means1[column.ordinal()] = StatUtils.mean(sample1.get(column));
+            means2[column.ordinal()] = StatUtils.mean(sample2.get(column));
+        }
+        return new SentimentComparison(means1, means2, pValues, sample1.getLabelCounts(),
+            sample2.getLabelCounts(), chiSquareTest(sample1, sample2), alpha);
 
     }
 
@@ -131,13 +335,70 @@ public class RunTTest {
         throws MaxCountExceededException, NotStrictlyPositiveException {
 
         final double t = FastMath.abs(t(m1, m2, v1, v2, n1, n2));
-        final double degreesOfFreedom = df(v1, v2, n1, n2);
+        // Welch degrees of freedom are fractional and rarely repeat, so the distribution is not cached
         // pass a null rng to avoid unneeded overhead as we will not sample from this distribution
-        final TDistribution distribution = new TDistribution(null, degreesOfFreedom);
+        final TDistribution distribution = new TDistribution(null, df(v1, v2, n1, n2));
         return 2.0 * distribution.cumulativeProbability(-t);
 
     }
 
+    /**
+     * Computes p-value for 2-sided, 1-sample t-test.
+     *
+     * @param m sample mean
+     * @param mu constant to test against
+     * @param v sample variance
+     * @param n sample n
+     * @return p-value
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     * @throws NotStrictlyPositiveException if n is not greater than 1
+     */
+    protected double tTest(final double m, final double mu,
+                           final double v, final double n)
+        throws MaxCountExceededException, NotStrictlyPositiveException {
+
+        final double t = FastMath.abs((m - mu) / FastMath.sqrt(v / n));
+        final TDistribution distribution = DISTRIBUTIONS.get((int) n - 1);
+        return 2.0 * distribution.cumulativeProbability(-t);
+
+    }
+
+    /**
+     * Decides a 2-sided, 2-sample t-test at significance level alpha.
+     *
+     * The t statistic is first compared with tabulated critical values, which settles the test without
+     * evaluating the t-distribution unless |t| lies within TCriticalValues.TOLERANCE of the critical value.
+     * Only then is the p-value computed, so the decision is always the same as tTest(m1, m2, v1, v2, n1, n2) <
+     * alpha. A table entry costs far more than one p-value, so this only pays off for callers deciding many tests
+     * with the same alpha and similar sample sizes, such as PowerAnalysis.
+     *
+     * @param m1 first sample mean
+     * @param m2 second sample mean
+     * @param v1 first sample variance
+     * @param v2 second sample variance
+     * @param n1 first sample n
+     * @param n2 second sample n
+     * @param alpha significance level of the test
+     * @return true if the null hypothesis can be rejected with
+     * confidence 1 - alpha
+     * @throws MaxCountExceededException if an error occurs computing the p-value
+     * @throws NotStrictlyPositiveException if the estimated degrees of freedom is not
+     * strictly positive
+     */
+    protected boolean reject(final double m1, final double m2,
+                             final double v1, final double v2,
+                             final double n1, final double n2,
+                             final double alpha)
+        throws MaxCountExceededException, NotStrictlyPositiveException {
+
+        final Boolean decision = CRITICAL_VALUES.decide(t(m1, m2, v1, v2, n1, n2), df(v1, v2, n1, n2), alpha);
+        if (decision != null) {
+            return decision;
+        }
+        return tTest(m1, m2, v1, v2, n1, n2) < alpha;
+
+    }
+
     /**
      * Computes t test statistic for 2-sample t-test.
      *
@@ -206,4 +467,40 @@ public class RunTTest {
         }
     }
 
+    /**
+     * Helper method to verify that input is not null and holds at least 2 rows.
+     * @param data input columns.
+     * @throws NullPointerException
+     * @throws NumberIsTooSmallException
+     */
+    private void verifyData(final SentimentColumns data)
+        throws NullPointerException, NumberIsTooSmallException{
+
+        if (data == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+
+        if (data.size() < 2) {
+            throw new NumberIsTooSmallException(LocalizedFormats.INSUFFICIENT_DATA_FOR_T_STATISTIC, data.size(), 2, true);
+        }
+    }
+
+    /**
+     * Helper method to verify that input is not null and holds at least 2 values.
+     * @param data input statistics.
+     * @throws NullPointerException
+     * @throws NumberIsTooSmallException
+     */
+    private void verifyData(final WelchAccumulator data)
+        throws NullPointerException, NumberIsTooSmallException{
+
+        if (data == null) {
+            throw new NullArgumentException(LocalizedFormats.NULL_NOT_ALLOWED);
+        }
+
+        if (data.getN() < 2) {
+            throw new NumberIsTooSmallException(LocalizedFormats.INSUFFICIENT_DATA_FOR_T_STATISTIC, data.getN(), 2, true);
+        }
+    }
+
 }
@@ -0,0 +1,96 @@
+package runtest;
+
+import enums.ScoreColumn;
+import enums.Sentiment;
+
+import java.util.Arrays;
+
+/**
+ * Comparison of two groups on every score dimension (Welch t-test) and on the distribution of their dominant
+ * sentiment labels (chi-square test). Per dimension values are indexed by ScoreColumn ordinal.
+ */
+public class SentimentComparison {
+
+    private final double[] means1;
+    private final double[] means2;
+    private final double[] pValues;
+    private final long[] labelCounts1;
+    private final long[] labelCounts2;
+    private final double labelPValue;
+    private final double alpha;
+
+    SentimentComparison(double[] means1, double[] means2, double[] pValues, long[] labelCounts1,
+                        long[] labelCounts2, double labelPValue, double alpha) {
+        this.means1 = means1;
+        this.means2 = means2;
+        this.pValues = pValues;
+        this.labelCounts1 = labelCounts1;
+        this.labelCounts2 = labelCounts2;
+        this.labelPValue = labelPValue;
+        this.alpha = alpha;
+    }
+
+    public double getMean1(ScoreColumn column) {
+        return means1[column.ordinal()];
+    }
+
+    public double getMean2(ScoreColumn column) {
+        return means2[column.ordinal()];
+    }
+
+    /**
+     * @param column score dimension.
+     * @return p-value of the t-test of that dimension.
+     */
+    public double getPValue(ScoreColumn column) {
+        return pValues[column.ordinal()];
+    }
+
+    /**
+     * @param column score dimension.
+     * @return true if equal means of that dimension are rejected at alpha.
+     */
+    public boolean isRejected(ScoreColumn column) {
+        return pValues[column.ordinal()] < alpha;
+    }
+
+    /**
+     * @return p-value of the chi-square test of equal label distributions.
+     */
+    public double getLabelPValue() {
+        return labelPValue;
+    }
+
+    /**
+     * @return true if equal label distributions are rejected at alpha.
+     */
+    public boolean isLabelDistributionRejected() {
+        return labelPValue < alpha;
+    }
+
+    public long[] getLabelCounts1() {
+        return Arrays.copyOf(labelCounts1, labelCounts1.length);
+    }
+
+    public long[] getLabelCounts2() {
+        return Arrays.copyOf(labelCounts2, labelCounts2.length);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%-10s %8s %8s %10s %s%n",
+            "score", "mean1", "mean2", "p", "reject@" + alpha));
+        for (ScoreColumn column : ScoreColumn.values()) {
+            table.append(String.format("%-10s %8.4f %8.4f %10.4g %s%n", column, getMean1(column), getMean2(column),
+                getPValue(column), isRejected(column)));
+        }
+        StringBuilder counts = new StringBuilder();
+        for (Sentiment label : Sentiment.values()) {
+            counts.append(String.format(" %s %d/%d", label, labelCounts1[label.ordinal()],
+                labelCounts2[label.ordinal()]));
+        }
+        table.append(String.format("%-10s %17s %10.4g %s  (%s)%n", "label", "", labelPValue,
+            isLabelDistributionRejected(), counts.toString().trim()));
+        return table.toString();
+    }
+}
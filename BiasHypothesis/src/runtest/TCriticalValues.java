@@ -0,0 +1,100 @@
+package runtest;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Two-sided critical values of the t-distribution for whole degrees of freedom, used to decide a test at a
+ * fixed alpha without evaluating the p-value.
+ *
+ * The critical value falls as the degrees of freedom grow, so the value for a fractional Welch df lies between
+ * the table entries at floor(df) and ceil(df), and above MAX_DF it lies between the entry at MAX_DF and the
+ * normal quantile. A |t| above the upper bound or below the lower bound therefore decides the test on its own.
+ * Table entries come from the commons-math inverse cdf, accurate to 1e-9; a |t| closer than TOLERANCE to either
+ * bound is left undecided so the caller falls back to the exact p-value. Decisions are therefore always the same
+ * as comparing the commons-math p-value with alpha.
+ *
+ * An entry costs one inverse cdf, far more than one p-value, so entries are computed the first time a test
+ * needs them; a caller whose degrees of freedom stay in a narrow range only ever computes a few. Tables are kept
+ * for at most MAX_TABLES distinct alphas, the first ones seen. Tests at any other alpha are left undecided.
+ */
+class TCriticalValues {
+
+    static final double TOLERANCE = 1e-6;
+
+    private static final int MAX_DF = 1000;
+    private static final int MAX_TABLES = 16;
+
+    // raw bits of every entry; 0 marks an entry not computed yet, as critical values are positive
+    private final Map<Double, AtomicLongArray> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param t t statistic.
+     * @param degreesOfFreedom Welch degrees of freedom.
+     * @param alpha two-sided significance level.
+     * @return TRUE if the null hypothesis is rejected, FALSE if it is not, or null if |t| is too close to the
+     * critical value and the exact p-value has to decide.
+     */
+    Boolean decide(double t, double degreesOfFreedom, double alpha) {
+        if (!(degreesOfFreedom >= 1)) {
+            return null;
+        }
+        final double absT = FastMath.abs(t);
+        final AtomicLongArray table = table(alpha);
+        if (table == null) {
+            return null;
+        }
+
+        final double upper;
+        final double lower;
+        if (degreesOfFreedom >= MAX_DF) {
+            upper = entry(table, MAX_DF, alpha);
+            lower = entry(table, 0, alpha);
+        } else {
+            upper = entry(table, (int) FastMath.floor(degreesOfFreedom), alpha);
+            lower = entry(table, (int) FastMath.ceil(degreesOfFreedom), alpha);
+        }
+
+        if (absT > upper + TOLERANCE) {
+            return Boolean.TRUE;
+        }
+        if (absT < lower - TOLERANCE) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * @param alpha two-sided significance level.
+     * @return the table of alpha, created empty on first use, or null if MAX_TABLES other alphas already have one.
+     */
+    private AtomicLongArray table(double alpha) {
+        AtomicLongArray table = tables.get(alpha);
+        if (table != null || tables.size() >= MAX_TABLES) {
+            return table;
+        }
+        return tables.computeIfAbsent(alpha, a -> new AtomicLongArray(MAX_DF + 1));
+    }
+
+    /**
+     * Index 0 holds the normal quantile, the limit of the critical value as the degrees of freedom grow; index
+     * d holds the critical value for d degrees of freedom. Two threads racing on an entry compute equal values.
+     */
+    private static double entry(AtomicLongArray table, int index, double alpha) {
+        final long bits = table.get(index);
+        if (bits != 0) {
+            return Double.longBitsToDouble(bits);
+        }
+        final double probability = 1.0 - alpha / 2.0;
+        final double value = index == 0
+            ? new NormalDistribution(null, 0, 1).inverseCumulativeProbability(probability)
+            : new TDistribution(null, index).inverseCumulativeProbability(probability);
+        table.set(index, Double.doubleToRawLongBits(value));
+        return value;
+    }
+}
@@ -0,0 +1,44 @@
+package runtest;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free cache of t-distributions for whole degrees of freedom, as used by the one-sample and paired tests,
+ * where the degrees of freedom are n - 1 and repeat whenever the sample size does. Welch degrees of freedom are
+ * fractional and almost never repeat, so the two-sample p-values build their distribution directly instead of
+ * going through this cache. TDistribution is immutable, so cached instances are shared between threads and the
+ * p-values are identical to building a new distribution every time.
+ */
+class TDistributionCache {
+
+    private final AtomicReferenceArray<TDistribution> distributions;
+
+    /**
+     * @param maxDegreesOfFreedom largest degrees of freedom kept; larger ones are built on every call.
+     */
+    TDistributionCache(final int maxDegreesOfFreedom) {
+        this.distributions = new AtomicReferenceArray<>(maxDegreesOfFreedom + 1);
+    }
+
+    /**
+     * @param degreesOfFreedom whole degrees of freedom.
+     * @return the cached distribution, created on first use.
+     * @throws NotStrictlyPositiveException if degreesOfFreedom is not strictly positive
+     */
+    TDistribution get(int degreesOfFreedom) throws NotStrictlyPositiveException {
+        if (degreesOfFreedom <= 0 || degreesOfFreedom >= distributions.length()) {
+            return new TDistribution(null, degreesOfFreedom);
+        }
+        TDistribution distribution = distributions.get(degreesOfFreedom);
+        if (distribution == null) {
+            // two threads racing on the same degrees of freedom create equal distributions
+            // pass a null rng to avoid unneeded overhead as we will not sample from this distribution
+            distribution = new TDistribution(null, degreesOfFreedom);
+            distributions.compareAndSet(degreesOfFreedom, null, distribution);
+        }
+        return distribution;
+    }
+}
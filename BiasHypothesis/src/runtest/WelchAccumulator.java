@@ -0,0 +1,77 @@
+package runtest;
+
+/**
+ * Running count, mean and sum of squared deviations (M2) of a sample, which is everything the Welch t-test
+ * needs. Values are folded in one at a time with Welford's update and partial accumulators (e.g. one per file
+ * chunk or partition) are combined with Chan's parallel update, so a test can run over any number of rows in
+ * constant memory without building double[] samples.
+ *
+ * Not thread safe; give each thread its own accumulator and merge them.
+ */
+public class WelchAccumulator {
+
+    private long n;
+    private double mean;
+    private double m2;
+
+    /**
+     * Folds one value into the statistics.
+     * @param value sample value.
+     */
+    public void add(double value) {
+        n++;
+        double delta = value - mean;
+        mean += delta / n;
+        m2 += delta * (value - mean);
+    }
+
+    /**
+     * Folds every value of an array into the statistics.
+     * @param values sample values.
+     */
+    public void addAll(double[] values) {
+        for (double value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Combines the statistics of another accumulator into this one. The result is the same as if every value
+     * added to other had been added to this accumulator.
+     * @param other accumulator to merge in; left unchanged.
+     */
+    public void merge(WelchAccumulator other) {
+        if (other.n == 0) {
+            return;
+        }
+        if (n == 0) {
+            n = other.n;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+        long total = n + other.n;
+        double delta = other.mean - mean;
+        mean += delta * other.n / total;
+        m2 += other.m2 + delta * delta * ((double) n * other.n / total);
+        n = total;
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getMean() {
+        return n == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return the bias-corrected sample variance, same as StatUtils.variance.
+     */
+    public double getVariance() {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        return n == 1 ? 0.0 : m2 / (n - 1);
+    }
+}
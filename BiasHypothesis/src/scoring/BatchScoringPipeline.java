@@ -0,0 +1,248 @@
+package scoring;
+
+import com.opencsv.CSVWriter;
+import datageneration.CorpusRecord;
+import datageneration.TextPassage;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Submits a corpus to a sentiment service in batches, keeping a bounded number of requests in flight and
+ * staying under the service's request rate.
+ *
+ * Records are cut into batches on the calling thread. Each batch takes a permit from a semaphore sized to the number of
+ * concurrent requests, so at most maxInFlight batches are held in memory, then waits for a token from the TokenBucket
+ * before every attempt. Documents the provider answers without a request, such as ScoreCache hits, are left out of the
+ * request and take no token; a batch answered entirely that way sends nothing. Retryable failures (throttling, server
+ * errors, timeouts) are sent again after an exponential backoff with jitter. Result rows are written in the layout
+ * SentimentCSVParser reads as soon as each batch completes, so rows of different batches may interleave out of corpus
+ * order; rows keep their name, gender and race, which is all the analysis needs. The first failure that cannot be
+ * retried stops the run.
+ */
+public class BatchScoringPipeline {
+
+    // Comprehend's BatchDetectSentiment accepts at most 25 documents per call
+    public static final int MAX_BATCH_SIZE = 25;
+
+    // longest single wait between retries
+    public static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private static final int CACHE_CAPACITY = 1 << 16;
+
+    private final int batchSize;
+    private final int maxInFlight;
+    private final TokenBucket rateLimiter;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+
+    /**
+     * @param batchSize documents per request, at most MAX_BATCH_SIZE.
+     * @param maxInFlight maximum number of concurrent requests.
+     * @param rateLimiter limiter every request attempt takes a token from.
+     * @param maxAttempts attempts per batch before giving up, at least 1.
+     * @param initialBackoffMillis wait before the first retry; doubled for every further retry.
+     */
+    public BatchScoringPipeline(int batchSize, int maxInFlight, TokenBucket rateLimiter, int maxAttempts,
+                                long initialBackoffMillis) {
+        if (batchSize <= 0 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_BATCH_SIZE + ": " + batchSize);
+        }
+        if (maxInFlight <= 0 || maxAttempts <= 0 || initialBackoffMillis < 0) {
+            throw new IllegalArgumentException("maxInFlight and maxAttempts must be positive, backoff not negative");
+        }
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.rateLimiter = rateLimiter;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * Scores every record and writes one result row per record, without a header:
+     * text, name, gender, race, sentimentScore, positive, mixed, negative, neutral
+     *
+     * @param records records to score.
+     * @param provider sentiment provider; must be safe to call from several threads.
+     * @param out destination of the result rows. Flushed but not closed.
+     * @return throughput and latency of the run.
+     * @throws IOException if a batch failed after all retries, or the output cannot be written.
+     */
+    public PipelineStats score(Iterator<CorpusRecord> records, SentimentProvider provider, Writer out)
+        throws IOException {
+        CSVWriter csvWriter = new CSVWriter(out);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ExecutorService workers = Executors.newFixedThreadPool(maxInFlight);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        AtomicLong documents = new AtomicLong();
+        AtomicLong retries = new AtomicLong();
+        LatencyHistogram latencies = new LatencyHistogram();
+        long batches = 0;
+        long start = System.nanoTime();
+
+        try {
+            while (records.hasNext() && failure.get() == null) {
+                List<CorpusRecord> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && records.hasNext()) {
+                    batch.add(records.next());
+                }
+                acquire(inFlight, 1);
+                batches++;
+                workers.execute(() -> {
+                    try {
+                        List<SentimentResult> results = submit(batch, provider, latencies, retries);
+                        synchronized (csvWriter) {
+                            for (int i = 0; i < batch.size(); i++) {
+                                csvWriter.writeNext(LocalScoring.toResultRow(batch.get(i), results.get(i)), false);
+                            }
+                        }
+                        documents.addAndGet(batch.size());
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, new IOException(e));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // every permit back means every batch has finished
+            acquire(inFlight, maxInFlight);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        csvWriter.flush();
+        if (csvWriter.checkError()) {
+            throw new IOException("Failed to write result rows");
+        }
+        return new PipelineStats(documents.get(), batches, retries.get(), System.nanoTime() - start,
+            latencies.getPercentile(0.50) / 1e6, latencies.getPercentile(0.99) / 1e6);
+    }
+
+    private List<SentimentResult> submit(List<CorpusRecord> batch, SentimentProvider provider,
+                                         LatencyHistogram latencies, AtomicLong retries) throws IOException {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (CorpusRecord record : batch) {
+            texts.add(record.getText());
+        }
+        // documents the provider answers without a request take no token and are not timed
+        List<SentimentResult> results = new ArrayList<>(provider.lookup(texts));
+        List<Integer> missing = new ArrayList<>();
+        List<String> missingTexts = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (results.get(i) == null) {
+                missing.add(i);
+                missingTexts.add(texts.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+                long requestStart = System.nanoTime();
+                List<SentimentResult> scored = provider.batchDetectSentiment(missingTexts);
+                long nanos = System.nanoTime() - requestStart;
+                latencies.record(nanos);
+                Metrics.SCORE.record(nanos, missingTexts.size());
+                for (int i = 0; i < missing.size(); i++) {
+                    results.set(missing.get(i), scored.get(i));
+                }
+                return results;
+            } catch (SentimentServiceException e) {
+                Metrics.SCORE.addError();
+                if (!e.isRetryable() || attempt == maxAttempts) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+                backoff(attempt);
+            } catch (IOException e) {
+                Metrics.SCORE.addError();
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the rate limiter", e);
+            }
+        }
+    }
+
+    /**
+     * Full jitter: a random wait up to initialBackoffMillis * 2^(attempt - 1), capped at MAX_BACKOFF_MILLIS, so
+     * throttled clients do not all retry at the same moment.
+     */
+    private void backoff(int attempt) throws IOException {
+        int doublings = Math.min(attempt - 1, 20);
+        long ceiling = Math.min(initialBackoffMillis, MAX_BACKOFF_MILLIS >> doublings) << doublings;
+        try {
+            Thread.sleep(ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(0, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while backing off", e);
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, int permits) throws IOException {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a request slot", e);
+        }
+    }
+
+    /**
+     * Scores the TextPassage corpus through a LocalSentimentServer, the same way it would be sent to Comprehend,
+     * writes final.csv in the working directory and prints throughput and latency. Results are kept in scores.cache
+     * next to it, so passages scored by an earlier run with the same arguments are not sent again. Arguments are
+     * optional name=bias pairs injected into the server's scorer, e.g. DeShawn=-0.1
+     */
+    public static void main(String[] args) throws IOException {
+        // without TCP_NODELAY the JDK server's separate header and body writes wait out the client's delayed ACK,
+        // adding about 40ms to every request; read once when the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        Map<String, Double> bias = LexiconSentimentProvider.parseBias(args);
+
+        try (LocalSentimentServer server = new LocalSentimentServer(new LexiconSentimentProvider(bias),
+                MAX_BATCH_SIZE, 5, 50, 8);
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                 Files.newOutputStream(Paths.get("final.csv")), StandardCharsets.UTF_8));
+             ScoreCache cache = new ScoreCache(Paths.get("scores.cache"), CACHE_CAPACITY)) {
+            // the injected bias changes the scores, so it is part of the model version
+            CachingSentimentProvider provider = new CachingSentimentProvider(
+                new HttpSentimentProvider(server.getEndpoint(), Duration.ofSeconds(10)),
+                cache, "local-lexicon", new TreeMap<>(bias).toString());
+            BatchScoringPipeline pipeline = new BatchScoringPipeline(MAX_BATCH_SIZE, 8,
+                new TokenBucket(200, 20), 5, 20);
+            PipelineStats stats = pipeline.score(TextPassage.corpus().iterator(), provider, out);
+            System.out.println(stats);
+            System.out.println(provider.getHits() + " cached, " + provider.getMisses() + " scored");
+        }
+    }
+}
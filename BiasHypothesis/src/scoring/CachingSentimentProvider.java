@@ -0,0 +1,95 @@
+package scoring;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a SentimentProvider with a ScoreCache so documents that were already scored by the same model version
+ * are never sent again. A batch sends only its uncached documents, in one request.
+ */
+public class CachingSentimentProvider implements SentimentProvider {
+
+    private final SentimentProvider delegate;
+    private final ScoreCache cache;
+    private final String model;
+    private final String version;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param delegate provider that scores uncached documents.
+     * @param cache cache of earlier results.
+     * @param model name of the delegate's model.
+     * @param version version of the delegate's model; change it whenever the model's results change.
+     */
+    public CachingSentimentProvider(SentimentProvider delegate, ScoreCache cache, String model, String version) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.model = model;
+        this.version = version;
+    }
+
+    @Override
+    public SentimentResult detectSentiment(String text) throws IOException {
+        return batchDetectSentiment(Collections.singletonList(text)).get(0);
+    }
+
+    @Override
+    public List<SentimentResult> batchDetectSentiment(List<String> texts) throws IOException {
+        List<SentimentResult> results = lookup(texts);
+        List<Integer> missing = new ArrayList<>();
+        List<String> missingTexts = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (results.get(i) == null) {
+                missing.add(i);
+                missingTexts.add(texts.get(i));
+            }
+        }
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            List<SentimentResult> scored = delegate.batchDetectSentiment(missingTexts);
+            for (int i = 0; i < missing.size(); i++) {
+                cache.put(model, version, missingTexts.get(i), scored.get(i));
+                results.set(missing.get(i), scored.get(i));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param texts documents to look up.
+     * @return the cached result of every document, null for documents not scored by this model version yet.
+     */
+    @Override
+    public List<SentimentResult> lookup(List<String> texts) {
+        List<SentimentResult> results = new ArrayList<>(texts.size());
+        long found = 0;
+        for (String text : texts) {
+            SentimentResult cached = cache.get(model, version, text);
+            results.add(cached);
+            if (cached != null) {
+                found++;
+            }
+        }
+        hits.addAndGet(found);
+        return results;
+    }
+
+    /**
+     * @return documents answered from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return documents sent to the delegate.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,80 @@
+package scoring;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Scores text through an HTTP sentiment service speaking the BatchDetectSentiment style JSON described in
+ * SentimentWireFormat, such as LocalSentimentServer. One HttpClient is shared by all calls and is thread safe.
+ */
+public class HttpSentimentProvider implements SentimentProvider {
+
+    private final HttpClient client;
+    private final URI endpoint;
+    private final Duration timeout;
+
+    /**
+     * @param endpoint URL the batches are posted to.
+     * @param timeout time allowed for each request.
+     */
+    public HttpSentimentProvider(URI endpoint, Duration timeout) {
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .build();
+        this.endpoint = endpoint;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public SentimentResult detectSentiment(String text) throws IOException {
+        return batchDetectSentiment(Collections.singletonList(text)).get(0);
+    }
+
+    /**
+     * @throws SentimentServiceException on timeouts, connection failures, throttling (429) and server errors (5xx),
+     * marked retryable, and on other failures, marked not retryable.
+     */
+    @Override
+    public List<SentimentResult> batchDetectSentiment(List<String> texts) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(SentimentWireFormat.encodeRequest(texts), StandardCharsets.UTF_8))
+            .build();
+
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (HttpTimeoutException e) {
+            throw new SentimentServiceException("Request timed out", e, true);
+        } catch (IOException e) {
+            // refused or reset connections are usually transient
+            throw new SentimentServiceException("Request failed: " + e, e, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SentimentServiceException("Interrupted", e, false);
+        }
+
+        int status = response.statusCode();
+        if (status == 429 || status >= 500) {
+            throw new SentimentServiceException("Service returned " + status, true);
+        }
+        if (status != 200) {
+            throw new SentimentServiceException("Service returned " + status + ": " + response.body(), false);
+        }
+        try {
+            return SentimentWireFormat.decodeResponse(response.body(), texts.size());
+        } catch (RuntimeException e) {
+            throw new SentimentServiceException("Malformed response", e, false);
+        }
+    }
+}
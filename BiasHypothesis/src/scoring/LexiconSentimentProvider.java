@@ -0,0 +1,169 @@
+package scoring;
+
+import enums.Sentiment;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic, in-process stand-in for Comprehend. Counts words from a positive and a negative lexicon,
+ * turns the counts into scores for the four sentiment types with a softmax, and adds a configurable bias
+ * for chosen words (e.g. names) to the positive score, plus a little noise seeded from the text. The same text
+ * always gets the same scores, so the whole generate, score and test loop can run offline, and a known injected
+ * bias lets us check that the tests find it.
+ */
+public class LexiconSentimentProvider implements SentimentProvider {
+
+    private static final Set<String> DEFAULT_POSITIVE = new HashSet<>(Arrays.asList(
+        "special", "bright", "clear", "interesting", "good", "great", "happy", "love", "well", "ease",
+        "friends", "nice", "best", "better", "excellent", "wonderful", "pleasant", "calm", "kind", "enjoy"));
+
+    private static final Set<String> DEFAULT_NEGATIVE = new HashSet<>(Arrays.asList(
+        "nervous", "irritable", "worry", "worried", "wet", "muddy", "knock", "last", "bad", "sad",
+        "angry", "hate", "poor", "terrible", "awful", "never", "fear", "afraid", "problem", "wrong"));
+
+    private static final double WORD_WEIGHT = 0.25;
+    private static final double NEUTRAL_LOGIT = 1.0;
+    private static final double MIXED_LOGIT = -3.0;
+    private static final double DEFAULT_NOISE = 0.1;
+
+    private final Set<String> positiveWords;
+    private final Set<String> negativeWords;
+    private final Map<String, Double> bias;
+    private final double noise;
+
+    /**
+     * Uses the built-in lexicon, no bias and the default noise.
+     */
+    public LexiconSentimentProvider() {
+        this(new HashMap<>());
+    }
+
+    /**
+     * Uses the built-in lexicon and the default noise.
+     * @param bias amount added to the positive score for every occurrence of a word, e.g. a name. Negative
+     *             values lower the positive score. Words are matched case-insensitively.
+     */
+    public LexiconSentimentProvider(Map<String, Double> bias) {
+        this(DEFAULT_POSITIVE, DEFAULT_NEGATIVE, bias, DEFAULT_NOISE);
+    }
+
+    /**
+     * Reads bias arguments of the mains that score with this provider.
+     * @param pairs name=bias pairs, e.g. DeShawn=-0.1
+     * @return name to bias.
+     * @throws IllegalArgumentException if a pair has no '=' or its bias is not a number.
+     */
+    public static Map<String, Double> parseBias(String... pairs) {
+        Map<String, Double> bias = new HashMap<>();
+        for (String pair : pairs) {
+            String[] nameAndBias = pair.split("=", 2);
+            if (nameAndBias.length != 2) {
+                throw new IllegalArgumentException("Expected name=bias, got " + pair);
+            }
+            try {
+                bias.put(nameAndBias[0], Double.valueOf(nameAndBias[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bias is not a number: " + pair, e);
+            }
+        }
+        return bias;
+    }
+
+    /**
+     * @param positiveWords lower case words that raise the positive score.
+     * @param negativeWords lower case words that raise the negative score.
+     * @param bias amount added to the positive score for every occurrence of a word.
+     * @param noise standard deviation of the noise added to the positive and negative scores. The noise is seeded
+     *              from the text, so it is the same every time a text is scored; 0 for none.
+     */
+    public LexiconSentimentProvider(Set<String> positiveWords, Set<String> negativeWords, Map<String, Double> bias,
+                                    double noise) {
+        this.positiveWords = new HashSet<>(positiveWords);
+        this.negativeWords = new HashSet<>(negativeWords);
+        this.noise = noise;
+        this.bias = new HashMap<>();
+        for (Map.Entry<String, Double> entry : bias.entrySet()) {
+            this.bias.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+        }
+    }
+
+    @Override
+    public SentimentResult detectSentiment(String text) {
+        int positiveCount = 0;
+        int negativeCount = 0;
+        double injected = 0;
+
+        int pos = 0;
+        while (pos < text.length()) {
+            if (!Character.isLetter(text.charAt(pos))) {
+                pos++;
+                continue;
+            }
+            int wordEnd = pos;
+            while (wordEnd < text.length() && Character.isLetter(text.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            String word = text.substring(pos, wordEnd).toLowerCase(Locale.ROOT);
+            if (positiveWords.contains(word)) {
+                positiveCount++;
+            } else if (negativeWords.contains(word)) {
+                negativeCount++;
+            }
+            Double wordBias = bias.get(word);
+            if (wordBias != null) {
+                injected += wordBias;
+            }
+            pos = wordEnd;
+        }
+
+        // real models react to every token, so texts that differ only in a name still score slightly differently
+        SplittableRandom textNoise = new SplittableRandom(text.hashCode());
+        double positiveLogit = WORD_WEIGHT * positiveCount + injected + noise * gaussian(textNoise);
+        double negativeLogit = WORD_WEIGHT * negativeCount + noise * gaussian(textNoise);
+        double mixedLogit = MIXED_LOGIT + WORD_WEIGHT * Math.min(positiveCount, negativeCount);
+        double max = Math.max(Math.max(positiveLogit, negativeLogit), Math.max(mixedLogit, NEUTRAL_LOGIT));
+
+        double positive = Math.exp(positiveLogit - max);
+        double negative = Math.exp(negativeLogit - max);
+        double mixed = Math.exp(mixedLogit - max);
+        double neutral = Math.exp(NEUTRAL_LOGIT - max);
+        double total = positive + negative + mixed + neutral;
+        positive /= total;
+        negative /= total;
+        mixed /= total;
+        neutral /= total;
+
+        return new SentimentResult(dominant(positive, mixed, negative, neutral), positive, mixed, negative, neutral);
+    }
+
+    /**
+     * Standard normal draw (Box-Muller), since SplittableRandom has no nextGaussian.
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * random.nextDouble());
+    }
+
+    private static Sentiment dominant(double positive, double mixed, double negative, double neutral) {
+        Sentiment sentiment = Sentiment.POSITIVE;
+        double best = positive;
+        if (negative > best) {
+            sentiment = Sentiment.NEGATIVE;
+            best = negative;
+        }
+        if (neutral > best) {
+            sentiment = Sentiment.NEUTRAL;
+            best = neutral;
+        }
+        if (mixed > best) {
+            sentiment = Sentiment.MIXED;
+        }
+        return sentiment;
+    }
+}
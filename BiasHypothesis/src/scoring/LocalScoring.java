@@ -0,0 +1,97 @@
+package scoring;
+
+import com.opencsv.CSVWriter;
+import datageneration.CorpusGenerator;
+import datageneration.CorpusRecord;
+import datageneration.TextPassage;
+import metrics.Metrics;
+import metrics.StageMetrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores a generated corpus in-process and writes the results in the layout SentimentCSVParser reads,
+ * replacing the manual S3 upload and Comprehend job when running offline.
+ */
+public class LocalScoring {
+
+    private static final int BATCH_SIZE = 25;
+
+    /**
+     * Scores every record of a corpus and writes one result row per record, without a header:
+     * text, name, gender, race, sentimentScore, positive, mixed, negative, neutral
+     *
+     * @param corpus records to score.
+     * @param provider sentiment provider.
+     * @param out destination of the result rows. Flushed but not closed.
+     * @throws IOException exception.
+     */
+    public static void scoreCorpus(CorpusGenerator corpus, SentimentProvider provider, Writer out)
+        throws IOException {
+        CSVWriter csvWriter = new CSVWriter(out);
+        List<CorpusRecord> batch = new ArrayList<>(BATCH_SIZE);
+        List<String> texts = new ArrayList<>(BATCH_SIZE);
+
+        Iterator<CorpusRecord> records = corpus.iterator();
+        while (records.hasNext()) {
+            CorpusRecord record = records.next();
+            batch.add(record);
+            texts.add(record.getText());
+            if (batch.size() == BATCH_SIZE || !records.hasNext()) {
+                StageMetrics.Span span = Metrics.SCORE.start();
+                List<SentimentResult> results = provider.batchDetectSentiment(texts);
+                span.finish(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    csvWriter.writeNext(toResultRow(batch.get(i), results.get(i)), false);
+                }
+                batch.clear();
+                texts.clear();
+            }
+        }
+
+        csvWriter.flush();
+    }
+
+    /**
+     * @param record scored record.
+     * @param result its sentiment.
+     * @return the result columns in the order SentimentCSVParser reads them.
+     */
+    public static String[] toResultRow(CorpusRecord record, SentimentResult result) {
+        return new String[] {
+            record.getText(),
+            record.getName(),
+            record.getGender().toString(),
+            record.getRace().toString(),
+            result.getSentiment().toString(),
+            Double.toString(result.getPositive()),
+            Double.toString(result.getMixed()),
+            Double.toString(result.getNegative()),
+            Double.toString(result.getNeutral())
+        };
+    }
+
+    /**
+     * Scores the TextPassage corpus with the lexicon stand-in and writes final.csv, the file GetResults reads, to
+     * the working directory.
+     * Arguments are optional name=bias pairs injected into the scorer, e.g. DeShawn=-0.1
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, Double> bias = LexiconSentimentProvider.parseBias(args);
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+            Files.newOutputStream(Paths.get("final.csv")), StandardCharsets.UTF_8))) {
+            scoreCorpus(TextPassage.corpus(), new LexiconSentimentProvider(bias), out);
+        }
+    }
+}
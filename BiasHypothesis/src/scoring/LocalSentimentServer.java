@@ -0,0 +1,121 @@
+package scoring;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP stand-in for a sentiment service, backed by any SentimentProvider. Used to exercise
+ * HttpSentimentProvider and BatchScoringPipeline without network access. It can add a fixed latency and reject
+ * every n-th request with 429 to check throttling and retries. Without the system property
+ * sun.net.httpserver.nodelay=true, set before the first server starts, each request waits out the client's
+ * delayed ACK; BatchScoringPipeline.main sets it.
+ */
+public class LocalSentimentServer implements Closeable {
+
+    private static final String PATH = "/sentiment";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SentimentProvider provider;
+    private final int maxBatchSize;
+    private final long latencyMillis;
+    private final int throttleEvery;
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * @param provider scorer behind the server.
+     * @param maxBatchSize largest batch accepted; larger requests get 400, like Comprehend's limit of 25.
+     * @param latencyMillis delay added to every request.
+     * @param throttleEvery answer every n-th request with 429; 0 never throttles.
+     * @param threads number of requests served concurrently.
+     * @throws IOException if the server cannot bind a port.
+     */
+    public LocalSentimentServer(SentimentProvider provider, int maxBatchSize, long latencyMillis, int throttleEvery,
+                                int threads) throws IOException {
+        this.provider = provider;
+        this.maxBatchSize = maxBatchSize;
+        this.latencyMillis = latencyMillis;
+        this.throttleEvery = throttleEvery;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    /**
+     * @return the URL to post batches to.
+     */
+    public URI getEndpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + PATH);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            long request = requests.incrementAndGet();
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (throttleEvery > 0 && request % throttleEvery == 0) {
+                respond(exchange, 429, "{\"Message\":\"Rate exceeded\"}");
+                return;
+            }
+
+            List<String> texts;
+            try {
+                texts = SentimentWireFormat.decodeRequest(readBody(exchange.getRequestBody()));
+            } catch (RuntimeException e) {
+                respond(exchange, 400, "{\"Message\":" + SimpleJson.quote("Malformed request: " + e.getMessage()) + "}");
+                return;
+            }
+            if (texts.size() > maxBatchSize) {
+                respond(exchange, 400, "{\"Message\":\"Batch size exceeds " + maxBatchSize + "\"}");
+                return;
+            }
+            respond(exchange, 200, SentimentWireFormat.encodeResponse(provider.batchDetectSentiment(texts)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{\"Message\":\"Shutting down\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
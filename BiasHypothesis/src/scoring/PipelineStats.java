@@ -0,0 +1,67 @@
+package scoring;
+
+/**
+ * Outcome of a BatchScoringPipeline run: volume, retries, throughput and request latency percentiles.
+ */
+public class PipelineStats {
+
+    private final long documents;
+    private final long batches;
+    private final long retries;
+    private final long elapsedNanos;
+    private final double p50Millis;
+    private final double p99Millis;
+
+    PipelineStats(long documents, long batches, long retries, long elapsedNanos, double p50Millis,
+                  double p99Millis) {
+        this.documents = documents;
+        this.batches = batches;
+        this.retries = retries;
+        this.elapsedNanos = elapsedNanos;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return documents scored per second of wall clock time.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : documents * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return median latency of a successful request, in milliseconds.
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /**
+     * @return 99th percentile latency of a successful request, in milliseconds.
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d documents in %d batches (%d retries), %.1f docs/s, p50 %.2f ms, p99 %.2f ms",
+            documents, batches, retries, getThroughput(), p50Millis, p99Millis);
+    }
+}
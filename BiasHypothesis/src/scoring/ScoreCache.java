@@ -0,0 +1,249 @@
+package scoring;
+
+import enums.Sentiment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent, size bounded cache of sentiment results, keyed by the content they were computed from: the
+ * SHA-256 of the model name, model version and document text. A document rendered again with the same text is
+ * found no matter which corpus or run produced it; a new model version misses every entry.
+ *
+ * The cache is a single memory mapped file with a fixed number of slots, so its size on disk never grows past
+ * HEADER_BYTES + capacity * RECORD_BYTES. Each record holds
+ *
+ *   key (32 bytes) | last use (8 bytes) | sentiment ordinal (1 byte) | positive, mixed, negative, neutral (8 bytes each)
+ *
+ * little endian, with a last use of 0 marking a free slot. Scores are stored as full doubles so cached results
+ * are identical to freshly scored ones. When every slot is taken the least recently used entry is overwritten.
+ * The last use is a counter persisted in the record, so the eviction order survives reopening the cache.
+ * Thread safe.
+ */
+public class ScoreCache implements Closeable {
+
+    private static final int MAGIC = 0x53434331; // "SCC1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int KEY_BYTES = 32;
+    private static final int LAST_USE_OFFSET = KEY_BYTES;
+    private static final int SENTIMENT_OFFSET = LAST_USE_OFFSET + 8;
+    private static final int SCORES_OFFSET = SENTIMENT_OFFSET + 1;
+    static final int RECORD_BYTES = 80;
+
+    private static final Sentiment[] SENTIMENTS = Sentiment.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Map<Key, Integer> slots = new LinkedHashMap<>(16, 0.75f, true);
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long lastUse;
+
+    /**
+     * Opens a cache file, creating it if missing.
+     *
+     * @param file cache file.
+     * @param capacity maximum number of entries. Must match the capacity the file was created with.
+     * @throws IOException if the file cannot be opened or was not written by this class.
+     */
+    public ScoreCache(Path file, int capacity) throws IOException {
+        if (capacity <= 0 || capacity > (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        this.capacity = capacity;
+        boolean created = !Files.exists(file) || Files.size(file) == 0;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            long size = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+            if (!created && channel.size() != size) {
+                throw new IOException(file + " does not hold a cache of " + capacity + " entries");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+                buffer.putInt(8, RECORD_BYTES);
+                buffer.putInt(12, capacity);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                || buffer.getInt(8) != RECORD_BYTES || buffer.getInt(12) != capacity) {
+                throw new IOException(file + " is not a compatible score cache");
+            }
+            load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param model name of the model that scores documents, e.g. "comprehend".
+     * @param version version of the model; results of other versions are never returned.
+     * @param text document text.
+     * @return the cached result, or null if the document has not been scored by this model version.
+     */
+    public SentimentResult get(String model, String version, String text) {
+        // hashed before taking the lock, so scoring threads only serialize on the slot lookup
+        Key key = key(model, version, text);
+        synchronized (this) {
+            Integer slot = slots.get(key);
+            if (slot == null) {
+                return null;
+            }
+            int offset = offset(slot);
+            buffer.putLong(offset + LAST_USE_OFFSET, ++lastUse);
+            return new SentimentResult(
+                SENTIMENTS[buffer.get(offset + SENTIMENT_OFFSET)],
+                buffer.getDouble(offset + SCORES_OFFSET),
+                buffer.getDouble(offset + SCORES_OFFSET + 8),
+                buffer.getDouble(offset + SCORES_OFFSET + 16),
+                buffer.getDouble(offset + SCORES_OFFSET + 24));
+        }
+    }
+
+    /**
+     * Stores a result, evicting the least recently used entry if the cache is full.
+     *
+     * @param model name of the model that scored the document.
+     * @param version version of the model.
+     * @param text document text.
+     * @param result the document's sentiment.
+     */
+    public void put(String model, String version, String text, SentimentResult result) {
+        Key key = key(model, version, text);
+        synchronized (this) {
+            Integer slot = slots.get(key);
+            if (slot == null) {
+                slot = freeSlots.isEmpty() ? evict() : freeSlots.pop();
+                slots.put(key, slot);
+            }
+            int offset = offset(slot);
+            for (int i = 0; i < KEY_BYTES; i++) {
+                buffer.put(offset + i, key.hash[i]);
+            }
+            buffer.putLong(offset + LAST_USE_OFFSET, ++lastUse);
+            buffer.put(offset + SENTIMENT_OFFSET, (byte) result.getSentiment().ordinal());
+            buffer.putDouble(offset + SCORES_OFFSET, result.getPositive());
+            buffer.putDouble(offset + SCORES_OFFSET + 8, result.getMixed());
+            buffer.putDouble(offset + SCORES_OFFSET + 16, result.getNegative());
+            buffer.putDouble(offset + SCORES_OFFSET + 24, result.getNeutral());
+        }
+    }
+
+    /**
+     * @return number of cached entries.
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Writes all changes to disk and closes the file.
+     * @throws IOException exception.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    private int evict() {
+        Map.Entry<Key, Integer> eldest = slots.entrySet().iterator().next();
+        slots.remove(eldest.getKey());
+        return eldest.getValue();
+    }
+
+    /**
+     * Rebuilds the slot index from the file, oldest entry first so the access order matches the stored one.
+     */
+    private void load() {
+        long[][] used = new long[capacity][];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long use = buffer.getLong(offset(slot) + LAST_USE_OFFSET);
+            if (use == 0) {
+                freeSlots.add(slot);
+            } else {
+                used[count++] = new long[] {use, slot};
+            }
+        }
+        long[][] ordered = Arrays.copyOf(used, count);
+        Arrays.sort(ordered, Comparator.comparingLong((long[] entry) -> entry[0]));
+        for (long[] entry : ordered) {
+            int slot = (int) entry[1];
+            byte[] hash = new byte[KEY_BYTES];
+            for (int i = 0; i < KEY_BYTES; i++) {
+                hash[i] = buffer.get(offset(slot) + i);
+            }
+            slots.put(new Key(hash), slot);
+            lastUse = entry[0];
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static Key key(String model, String version, String text) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        for (String part : List.of(model, version)) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return new Key(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * SHA-256 of model, version and text.
+     */
+    private static final class Key {
+
+        private final byte[] hash;
+        private final int hashCode;
+
+        Key(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(hash, ((Key) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package scoring;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Something that scores the sentiment of text, such as Comprehend or a local stand-in.
+ */
+public interface SentimentProvider {
+
+    /**
+     * @param text document to score.
+     * @return the document's sentiment.
+     * @throws IOException if the provider cannot be reached.
+     */
+    SentimentResult detectSentiment(String text) throws IOException;
+
+    /**
+     * Scores several documents at once. Providers backed by a service override this to send one request.
+     * @param texts documents to score.
+     * @return one result per document, in the same order.
+     * @throws IOException if the provider cannot be reached.
+     */
+    default List<SentimentResult> batchDetectSentiment(List<String> texts) throws IOException {
+        List<SentimentResult> results = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            results.add(detectSentiment(text));
+        }
+        return results;
+    }
+
+    /**
+     * Answers the documents that need no request to the provider, e.g. from a cache, so callers can skip rate
+     * limiting for them. The default answers none.
+     * @param texts documents to look up.
+     * @return one result per document, in the same order; null for documents that need a request.
+     */
+    default List<SentimentResult> lookup(List<String> texts) {
+        return Collections.nCopies(texts.size(), null);
+    }
+}
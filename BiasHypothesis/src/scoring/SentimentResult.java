@@ -0,0 +1,43 @@
+package scoring;
+
+import enums.Sentiment;
+
+/**
+ * Sentiment of one document: the dominant sentiment type and the confidence in each of the four types.
+ */
+public class SentimentResult {
+
+    private final Sentiment sentiment;
+    private final double positive;
+    private final double mixed;
+    private final double negative;
+    private final double neutral;
+
+    public SentimentResult(Sentiment sentiment, double positive, double mixed, double negative, double neutral) {
+        this.sentiment = sentiment;
+        this.positive = positive;
+        this.mixed = mixed;
+        this.negative = negative;
+        this.neutral = neutral;
+    }
+
+    public Sentiment getSentiment() {
+        return sentiment;
+    }
+
+    public double getPositive() {
+        return positive;
+    }
+
+    public double getMixed() {
+        return mixed;
+    }
+
+    public double getNegative() {
+        return negative;
+    }
+
+    public double getNeutral() {
+        return neutral;
+    }
+}
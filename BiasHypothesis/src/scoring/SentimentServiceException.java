@@ -0,0 +1,28 @@
+package scoring;
+
+import java.io.IOException;
+
+/**
+ * A failed call to a sentiment service. Retryable failures (throttling, server errors, timeouts) may succeed
+ * when the same request is sent again.
+ */
+public class SentimentServiceException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public SentimentServiceException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public SentimentServiceException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
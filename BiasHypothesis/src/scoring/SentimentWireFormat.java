@@ -0,0 +1,95 @@
+package scoring;
+
+import enums.Sentiment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request and response bodies of a BatchDetectSentiment style call, shared by HttpSentimentProvider and
+ * LocalSentimentServer:
+ *
+ * request:  {"LanguageCode":"en","TextList":["...", ...]}
+ * response: {"ResultList":[{"Index":0,"Sentiment":"POSITIVE",
+ *            "SentimentScore":{"Positive":0.9,"Negative":0.01,"Neutral":0.08,"Mixed":0.01}}, ...],"ErrorList":[]}
+ */
+final class SentimentWireFormat {
+
+    private SentimentWireFormat() {
+    }
+
+    static String encodeRequest(List<String> texts) {
+        StringBuilder body = new StringBuilder("{\"LanguageCode\":\"en\",\"TextList\":[");
+        for (int i = 0; i < texts.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(SimpleJson.quote(texts.get(i)));
+        }
+        return body.append("]}").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> decodeRequest(String body) {
+        Map<String, Object> request = (Map<String, Object>) SimpleJson.parse(body);
+        List<String> texts = new ArrayList<>();
+        for (Object text : (List<Object>) request.get("TextList")) {
+            texts.add((String) text);
+        }
+        return texts;
+    }
+
+    static String encodeResponse(List<SentimentResult> results) {
+        StringBuilder body = new StringBuilder("{\"ResultList\":[");
+        for (int i = 0; i < results.size(); i++) {
+            SentimentResult result = results.get(i);
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"Index\":").append(i)
+                .append(",\"Sentiment\":\"").append(result.getSentiment()).append('"')
+                .append(",\"SentimentScore\":{\"Positive\":").append(result.getPositive())
+                .append(",\"Negative\":").append(result.getNegative())
+                .append(",\"Neutral\":").append(result.getNeutral())
+                .append(",\"Mixed\":").append(result.getMixed())
+                .append("}}");
+        }
+        return body.append("],\"ErrorList\":[]}").toString();
+    }
+
+    /**
+     * @param body response body.
+     * @param size number of documents in the request.
+     * @return one result per document, in request order.
+     * @throws IllegalArgumentException if a document is missing or failed.
+     */
+    @SuppressWarnings("unchecked")
+    static List<SentimentResult> decodeResponse(String body, int size) {
+        Map<String, Object> response = (Map<String, Object>) SimpleJson.parse(body);
+        List<Object> errors = (List<Object>) response.get("ErrorList");
+        if (errors != null && !errors.isEmpty()) {
+            throw new IllegalArgumentException("Service reported errors: " + errors);
+        }
+
+        SentimentResult[] results = new SentimentResult[size];
+        for (Object item : (List<Object>) response.get("ResultList")) {
+            Map<String, Object> result = (Map<String, Object>) item;
+            Map<String, Object> score = (Map<String, Object>) result.get("SentimentScore");
+            int index = ((Double) result.get("Index")).intValue();
+            results[index] = new SentimentResult(
+                Sentiment.valueOf((String) result.get("Sentiment")),
+                (Double) score.get("Positive"),
+                (Double) score.get("Mixed"),
+                (Double) score.get("Negative"),
+                (Double) score.get("Neutral"));
+        }
+        for (int i = 0; i < size; i++) {
+            if (results[i] == null) {
+                throw new IllegalArgumentException("No result for document " + i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import datageneration.GenerateSampleDataReport;
+import datageneration.TextPassage;
+import enums.Gender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passage generation and csv report writing. The report goes to a writer or stream that only counts, so the
+ * numbers reflect generation and formatting rather than the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Benchmark
+    public List<String> textBuilderMale() {
+        return TextPassage.textBuilder(TextPassage.getStarterText(), TextPassage.getBlackMenNames(), Gender.MALE);
+    }
+
+    @Benchmark
+    public List<String> textBuilderFemale() {
+        return TextPassage.textBuilder(TextPassage.getStarterText(), TextPassage.getWhiteWomenNames(), Gender.FEMALE);
+    }
+
+    @Benchmark
+    public long generateCSVReport() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        GenerateSampleDataReport.writeCSVReport(writer);
+        return writer.count;
+    }
+
+    @Benchmark
+    public long generateCSVReportParallel() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        GenerateSampleDataReport.writeCSVReport(out, TextPassage.corpus());
+        return out.count;
+    }
+
+    private static final class CountingWriter extends Writer {
+
+        private long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import com.opencsv.exceptions.CsvValidationException;
+import datageneration.ColumnarResultFile;
+import datageneration.Grouping;
+import datageneration.MappedSentimentScanner;
+import datageneration.ParallelSentimentReader;
+import datageneration.ScoreGroups;
+import datageneration.SentimentCSVParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest of a Comprehend result file into race, gender and race x gender groups, through each reader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+
+    private static final Grouping[] GROUPINGS = {Grouping.RACE, Grouping.GENDER, Grouping.RACE_AND_GENDER};
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private Path file;
+    private Path columnarFile;
+    private final SentimentCSVParser parser = new SentimentCSVParser();
+    private final MappedSentimentScanner scanner = new MappedSentimentScanner();
+    private final ParallelSentimentReader parallelReader = new ParallelSentimentReader();
+
+    @Setup
+    public void writeFixture() throws IOException, CsvValidationException {
+        file = ResultFixtures.writeResults(rows, 42);
+        columnarFile = Files.createTempFile("comprehend-results-" + rows + "-", ".scol");
+        columnarFile.toFile().deleteOnExit();
+        ColumnarResultFile.write(file, columnarFile);
+    }
+
+    @Benchmark
+    public ScoreGroups openCsv() throws IOException, CsvValidationException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parser.getScoreGroups(reader, GROUPINGS);
+        }
+    }
+
+    @Benchmark
+    public ScoreGroups mapped() throws IOException {
+        return scanner.scan(file, GROUPINGS);
+    }
+
+    @Benchmark
+    public ScoreGroups parallel() throws IOException {
+        return parallelReader.read(file, GROUPINGS);
+    }
+
+    @Benchmark
+    public ScoreGroups columnar() throws IOException {
+        return ColumnarResultFile.open(columnarFile).toScoreGroups(GROUPINGS);
+    }
+}
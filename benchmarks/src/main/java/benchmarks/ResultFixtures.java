@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic result files in the layout SentimentCSVParser reads:
+ * text, name, gender, race, sentimentScore, positive, mixed, negative, neutral
+ */
+final class ResultFixtures {
+
+    private static final String[] GENDERS = {"MALE", "FEMALE"};
+    private static final String[] RACES = {"WHITE", "BLACK"};
+    private static final String[] SENTIMENTS = {"POSITIVE", "NEGATIVE", "NEUTRAL", "MIXED"};
+
+    private ResultFixtures() {
+    }
+
+    /**
+     * @param rows number of rows.
+     * @param seed seed for the scores, so every trial measures the same file.
+     * @return a temporary file, deleted on exit.
+     * @throws IOException exception.
+     */
+    static Path writeResults(int rows, long seed) throws IOException {
+        Path file = Files.createTempFile("comprehend-results-" + rows + "-", ".csv");
+        file.toFile().deleteOnExit();
+        SplittableRandom random = new SplittableRandom(seed);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int row = 0; row < rows; row++) {
+                double positive = random.nextDouble();
+                double mixed = random.nextDouble() * 0.01;
+                double negative = random.nextDouble() * (1 - positive - mixed);
+                double neutral = 1 - positive - mixed - negative;
+                writer.write(String.format(Locale.ROOT,
+                    "\"The only person for whom the house was in any way special was Name%d, row %d\","
+                        + "Name%d,%s,%s,%s,%.9f,%.9f,%.9f,%.9f%n",
+                    row % 80, row, row % 80, GENDERS[row & 1], RACES[(row >> 1) & 1],
+                    SENTIMENTS[random.nextInt(SENTIMENTS.length)], positive, mixed, negative, neutral));
+            }
+        }
+        return file;
+    }
+
+    static double[] scores(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = random.nextDouble();
+        }
+        return scores;
+    }
+}
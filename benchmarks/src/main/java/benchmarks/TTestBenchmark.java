@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.apache.commons.math3.stat.StatUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import runtest.RunTTest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RunTTest on full samples and on precomputed sufficient statistics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TTestBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int n;
+
+    private final SufficientStatisticsTTest runTTest = new SufficientStatisticsTTest();
+    private double[] sample1;
+    private double[] sample2;
+    private double m1;
+    private double m2;
+    private double v1;
+    private double v2;
+    private int invocation;
+
+    @Setup
+    public void createSamples() {
+        sample1 = ResultFixtures.scores(n, 1);
+        sample2 = ResultFixtures.scores(n, 2);
+        m1 = StatUtils.mean(sample1);
+        m2 = StatUtils.mean(sample2);
+        v1 = StatUtils.variance(sample1);
+        v2 = StatUtils.variance(sample2);
+    }
+
+    @Benchmark
+    public double arrays() {
+        return runTTest.tTest(sample1, sample2);
+    }
+
+    @Benchmark
+    public boolean arraysAtAlpha() {
+        return runTTest.tTest(sample1, sample2, 0.10);
+    }
+
+    /**
+     * Varies the second variance and sample size on every call, the way batch and permutation workloads do, so
+     * the Welch degrees of freedom never repeat.
+     */
+    @Benchmark
+    public double sufficientStatistics() {
+        int step = invocation++ & 1023;
+        return runTTest.pValue(m1, m2, v1, v2 * (1 + step * 1e-3), n, n + step);
+    }
+
+    /**
+     * Exposes the protected sufficient-statistics overload.
+     */
+    private static final class SufficientStatisticsTTest extends RunTTest {
+
+        double pValue(double m1, double m2, double v1, double v2, double n1, double n2) {
+            return tTest(m1, m2, v1, v2, n1, n2);
+        }
+    }
+}